@@ -0,0 +1,101 @@
+package com.miaomc.antiBuild.benchmark;
+
+import com.miaomc.antiBuild.data.DataManager;
+import com.miaomc.antiBuild.data.ProtectedArea;
+import org.bukkit.Location;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DataManager.getProtectedAreaAt 在不同区域数量下的查找耗时
+ * <ul>
+ *     <li>cacheHit：少量固定位置反复查询，所在区块已加载，全部命中区块查找表</li>
+ *     <li>cacheMiss：大量不同位置轮流查询，所在区块未加载，逐个检查候选区域</li>
+ *     <li>insideChunkNoArea：位置所在区块有区域但位置本身不在区域内（未命中结果）</li>
+ *     <li>wilderness：位置所在区块没有任何区域</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class AreaLookupBenchmark {
+    private static final int HOT_LOCATIONS = 64;
+    private static final int COLD_LOCATIONS = 1 << 16;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int areaCount;
+
+    private BenchmarkFixture fixture;
+    private DataManager dataManager;
+    private Location[] hotLocations;
+    private Location[] coldLocations;
+    private Location[] outsideLocations;
+    private Location[] wildernessLocations;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        fixture = new BenchmarkFixture(areaCount);
+        dataManager = fixture.getDataManager();
+
+        SplittableRandom random = new SplittableRandom(42);
+        hotLocations = new Location[HOT_LOCATIONS];
+        for (int i = 0; i < HOT_LOCATIONS; i++) {
+            hotLocations[i] = insideArea(random);
+            fixture.loadChunkAt(hotLocations[i].getBlockX(), hotLocations[i].getBlockZ());
+        }
+
+        coldLocations = new Location[COLD_LOCATIONS];
+        outsideLocations = new Location[COLD_LOCATIONS];
+        wildernessLocations = new Location[COLD_LOCATIONS];
+        int wilderness = fixture.wildernessOrigin();
+        for (int i = 0; i < COLD_LOCATIONS; i++) {
+            coldLocations[i] = insideArea(random);
+
+            Location inside = insideArea(random);
+            outsideLocations[i] = new Location(fixture.getWorld(), inside.getX(), random.nextInt(0, BenchmarkFixture.MIN_Y), inside.getZ());
+
+            wildernessLocations[i] = new Location(fixture.getWorld(),
+                    wilderness + random.nextInt(0, 4096), 64, wilderness + random.nextInt(0, 4096));
+        }
+    }
+
+    private Location insideArea(SplittableRandom random) {
+        int index = random.nextInt(areaCount);
+        return new Location(fixture.getWorld(),
+                fixture.areaOriginX(index) + random.nextInt(BenchmarkFixture.AREA_SIZE),
+                random.nextInt(BenchmarkFixture.MIN_Y, BenchmarkFixture.MAX_Y + 1),
+                fixture.areaOriginZ(index) + random.nextInt(BenchmarkFixture.AREA_SIZE));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fixture.close();
+    }
+
+    @Benchmark
+    public ProtectedArea cacheHit() {
+        return dataManager.getProtectedAreaAt(hotLocations[cursor++ & (HOT_LOCATIONS - 1)]);
+    }
+
+    @Benchmark
+    public ProtectedArea cacheMiss() {
+        return dataManager.getProtectedAreaAt(coldLocations[cursor++ & (COLD_LOCATIONS - 1)]);
+    }
+
+    @Benchmark
+    public ProtectedArea insideChunkNoArea() {
+        return dataManager.getProtectedAreaAt(outsideLocations[cursor++ & (COLD_LOCATIONS - 1)]);
+    }
+
+    @Benchmark
+    public ProtectedArea wilderness() {
+        return dataManager.getProtectedAreaAt(wildernessLocations[cursor++ & (COLD_LOCATIONS - 1)]);
+    }
+}
@@ -0,0 +1,115 @@
+package com.miaomc.antiBuild.benchmark;
+
+import com.miaomc.antiBuild.data.DataManager;
+import com.miaomc.antiBuild.data.ProtectedArea;
+import com.miaomc.antiBuild.data.ProtectionFlag;
+import com.miaomc.antiBuild.listeners.ProtectionListener;
+import com.miaomc.antiBuild.player.PlayerTracker;
+import com.miaomc.antiBuild.stats.PerformanceStats;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * 基准测试的公共环境：桩插件、数据管理器、监听器和网格排列的合成区域
+ * <p>
+ * 区域为 8x21x8 的长方体，按 16 格间距排成正方形网格，每个区域恰好位于一个区块内，
+ * 区域覆盖 y=60..80，网格范围外及 y&lt;60 的位置不受保护。
+ * 区域通过与命令相同的公开方法创建（写入临时目录中的数据日志），调度的任务在构造完成前全部执行完毕。
+ */
+public final class BenchmarkFixture {
+    public static final int SPACING = 16;
+    public static final int AREA_SIZE = 8;
+    public static final int MIN_Y = 60;
+    public static final int MAX_Y = 80;
+
+    private final Path dataFolder;
+    private final World world;
+    private final Plugin plugin;
+    private final PerformanceStats stats = new PerformanceStats();
+    private final DataManager dataManager;
+    private final int gridSide;
+    private PlayerTracker playerTracker;
+    private ProtectionListener protectionListener;
+
+    public BenchmarkFixture(int areaCount) throws IOException {
+        this.dataFolder = Files.createTempDirectory("antibuild-bench");
+        this.world = BukkitStubs.world("world");
+        this.plugin = BukkitStubs.createPlugin(dataFolder.toFile());
+        this.dataManager = new DataManager(plugin, stats);
+        dataManager.onWorldLoad(world.getName()); // 桩服务端没有已加载的世界，手动绑定
+        BukkitStubs.runTasksUntil(dataManager::isLoaded);
+        this.gridSide = (int) Math.ceil(Math.sqrt(areaCount));
+
+        for (int i = 0; i < areaCount; i++) {
+            int x = (i % gridSide) * SPACING;
+            int z = (i / gridSide) * SPACING;
+            String name = "area-" + i;
+            dataManager.createArea(name, world.getName());
+            ProtectedArea area = dataManager.getArea(name);
+            dataManager.setAreaPointA(area, new Location(world, x, MIN_Y, z));
+            dataManager.setAreaPointB(area, new Location(world, x + AREA_SIZE - 1, MAX_Y, z + AREA_SIZE - 1));
+            for (ProtectionFlag flag : ProtectionFlag.values()) {
+                dataManager.setAreaFlag(area, flag, true);
+            }
+        }
+        // 每次修改都请求重建索引，排队的请求只有最后一个真正构建
+        BukkitStubs.runPendingTasks();
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public DataManager getDataManager() {
+        return dataManager;
+    }
+
+    public ProtectionListener getProtectionListener() {
+        if (protectionListener == null) {
+            playerTracker = new PlayerTracker(plugin, stats, dataManager);
+            protectionListener = new ProtectionListener(plugin, stats, dataManager, playerTracker);
+        }
+        return protectionListener;
+    }
+
+    /**
+     * 模拟区块加载，为方块所在区块构建查找表并等待发布
+     */
+    public void loadChunkAt(int blockX, int blockZ) {
+        dataManager.onChunkLoad(world.getName(), blockX >> 4, blockZ >> 4);
+        BukkitStubs.runPendingTasks();
+    }
+
+    /**
+     * 网格中第 index 个区域的最小角坐标 x
+     */
+    public int areaOriginX(int index) {
+        return (index % gridSide) * SPACING;
+    }
+
+    public int areaOriginZ(int index) {
+        return (index / gridSide) * SPACING;
+    }
+
+    /**
+     * 网格以外的坐标，所在区块没有任何区域
+     */
+    public int wildernessOrigin() {
+        return (gridSide + 4) * SPACING;
+    }
+
+    public void close() throws IOException {
+        // 不调用 shutdown，避免把合成数据写入磁盘
+        try (Stream<Path> files = Files.walk(dataFolder)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.miaomc.antiBuild.benchmark;
+
+import com.miaomc.antiBuild.data.DataManager;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Logger;
+
+/**
+ * 基准测试用的轻量 Bukkit 桩实现
+ * <p>
+ * 基于动态代理：指定的方法返回给定的常量（或由 {@link Answer} 按参数计算），其余方法返回默认值
+ * （接口类型返回新的桩，集合返回空集合）。代理调用本身有固定开销，各基准之间可以比较，
+ * 但不代表真实服务端的绝对耗时。
+ * <p>
+ * 桩调度器只把同步和异步任务放入队列，由 {@link #runTasksUntil} 在调用线程依次执行，
+ * 定时任务（自动保存等）不会执行。
+ */
+public final class BukkitStubs {
+    private static final Logger LOGGER = Logger.getLogger("AntiBuild-Benchmark");
+    private static final long TASK_TIMEOUT_SECONDS = 60;
+    private static final Map<String, World> WORLDS = new ConcurrentHashMap<>();
+    private static final BlockingQueue<Runnable> TASKS = new LinkedBlockingQueue<>();
+
+    /**
+     * 按调用参数计算返回值的应答
+     */
+    @FunctionalInterface
+    public interface Answer {
+        Object answer(Object[] args);
+    }
+
+    private BukkitStubs() {
+    }
+
+    public static <T> T stub(Class<T> type) {
+        return stub(type, Collections.emptyMap());
+    }
+
+    public static <T> T stub(Class<T> type, Map<String, Object> answers) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    return self == args[0];
+                case "hashCode":
+                    return System.identityHashCode(self);
+                case "toString":
+                    return type.getSimpleName() + "Stub" + answers;
+                default:
+                    break;
+            }
+            if (answers.containsKey(method.getName())) {
+                Object answer = answers.get(method.getName());
+                return answer instanceof Answer dynamic ? dynamic.answer(args) : answer;
+            }
+            return defaultValue(method);
+        });
+        return type.cast(proxy);
+    }
+
+    private static Object defaultValue(Method method) {
+        Class<?> type = method.getReturnType();
+        if (type == void.class) {
+            return null;
+        } else if (type == boolean.class) {
+            return false;
+        } else if (type == int.class || type == short.class || type == byte.class || type == char.class) {
+            return type == int.class ? 0 : type == short.class ? (short) 0 : type == byte.class ? (byte) 0 : (char) 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == float.class) {
+            return 0F;
+        } else if (type == double.class) {
+            return 0D;
+        } else if (type == String.class) {
+            return "stub";
+        } else if (type == Logger.class) {
+            return LOGGER;
+        } else if (type == Set.class) {
+            return Collections.emptySet();
+        } else if (type == Map.class) {
+            return Collections.emptyMap();
+        } else if (Collection.class.isAssignableFrom(type)) {
+            return Collections.emptyList();
+        } else if (type.isInterface()) {
+            return stub(type);
+        }
+        return null;
+    }
+
+    /**
+     * 安装桩服务端：按名称返回 {@link #world} 创建的世界，调度器把任务放入队列
+     */
+    public static synchronized void installServer() {
+        if (Bukkit.getServer() == null) {
+            Map<String, Object> answers = new HashMap<>();
+            answers.put("getScheduler", scheduler());
+            answers.put("getWorld", (Answer) args -> args[0] instanceof String name ? WORLDS.get(name) : null);
+            Bukkit.setServer(stub(Server.class, answers));
+        }
+    }
+
+    private static BukkitScheduler scheduler() {
+        Answer enqueue = args -> {
+            TASKS.add((Runnable) args[1]);
+            return stub(BukkitTask.class);
+        };
+        Map<String, Object> answers = new HashMap<>();
+        answers.put("runTask", enqueue);
+        answers.put("runTaskAsynchronously", enqueue);
+        answers.put("runTaskLater", enqueue);
+        answers.put("runTaskLaterAsynchronously", enqueue);
+        return stub(BukkitScheduler.class, answers);
+    }
+
+    /**
+     * 在当前线程执行排队的任务，直到条件成立；条件依赖其他线程（如后台加载）时等待新任务
+     */
+    public static void runTasksUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TASK_TIMEOUT_SECONDS);
+        try {
+            while (true) {
+                Runnable task;
+                while ((task = TASKS.poll()) != null) {
+                    task.run();
+                }
+                if (condition.getAsBoolean()) {
+                    return;
+                }
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("等待任务超时");
+                }
+                task = TASKS.poll(10, TimeUnit.MILLISECONDS);
+                if (task != null) {
+                    task.run();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 执行当前排队的全部任务（包括执行过程中新加入的任务）
+     */
+    public static void runPendingTasks() {
+        runTasksUntil(() -> true);
+    }
+
+    /**
+     * 创建桩插件，配置为插件自带的默认 config.yml，数据目录为给定目录
+     */
+    public static Plugin createPlugin(File dataFolder) {
+        installServer();
+        if (!dataFolder.isDirectory() && !dataFolder.mkdirs()) {
+            throw new IllegalStateException("无法创建数据目录: " + dataFolder);
+        }
+        YamlConfiguration config;
+        try (InputStream defaults = DataManager.class.getResourceAsStream("/config.yml")) {
+            if (defaults == null) {
+                throw new IllegalStateException("找不到插件的 config.yml");
+            }
+            config = YamlConfiguration.loadConfiguration(new InputStreamReader(defaults, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        Map<String, Object> answers = new HashMap<>();
+        answers.put("getName", "AntiBuild");
+        answers.put("getDataFolder", dataFolder);
+        answers.put("getConfig", config);
+        answers.put("getServer", Bukkit.getServer());
+        answers.put("isEnabled", true);
+        return stub(Plugin.class, answers);
+    }
+
+    public static World world(String name) {
+        Map<String, Object> answers = new HashMap<>();
+        answers.put("getName", name);
+        answers.put("getUID", UUID.nameUUIDFromBytes(name.getBytes()));
+        answers.put("getMinHeight", 0);
+        answers.put("getMaxHeight", 256);
+        answers.put("isChunkLoaded", true);
+        answers.put("getLoadedChunks", new Chunk[0]);
+        World world = stub(World.class, answers);
+        WORLDS.put(name, world);
+        return world;
+    }
+
+    public static Block block(World world, int x, int y, int z, Material type) {
+        Map<String, Object> answers = new HashMap<>();
+        answers.put("getWorld", world);
+        answers.put("getX", x);
+        answers.put("getY", y);
+        answers.put("getZ", z);
+        answers.put("getType", type);
+        answers.put("getLocation", new Location(world, x, y, z));
+        return stub(Block.class, answers);
+    }
+}
@@ -0,0 +1,73 @@
+package com.miaomc.antiBuild.benchmark;
+
+import com.miaomc.antiBuild.listeners.ProtectionListener;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Entity;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProtectionListener.onEntityExplode 处理大型爆炸方块列表的耗时
+ * <p>
+ * 每次调用都会复制一份方块列表交给新事件（监听器会修改列表），复制开销包含在结果中。
+ * protectedBlast 为 true 时爆炸中心位于区域网格内，否则位于没有区域的野外。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ExplosionBenchmark {
+    @Param({"100", "1000", "5000"})
+    public int blockCount;
+
+    @Param({"true", "false"})
+    public boolean protectedBlast;
+
+    private BenchmarkFixture fixture;
+    private ProtectionListener listener;
+    private Entity source;
+    private Location center;
+    private List<Block> blocks;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        fixture = new BenchmarkFixture(10000);
+        listener = fixture.getProtectionListener();
+        source = BukkitStubs.stub(Entity.class);
+
+        World world = fixture.getWorld();
+        int origin = protectedBlast ? fixture.areaOriginX(5050) : fixture.wildernessOrigin();
+        int side = (int) Math.ceil(Math.cbrt(blockCount));
+        center = new Location(world, origin + side / 2.0, BenchmarkFixture.MIN_Y + side / 2.0, origin + side / 2.0);
+
+        blocks = new ArrayList<>(blockCount);
+        for (int i = 0; i < blockCount; i++) {
+            int x = origin + i % side;
+            int y = BenchmarkFixture.MIN_Y + (i / side) % side;
+            int z = origin + i / (side * side);
+            blocks.add(BukkitStubs.block(world, x, y, z, Material.STONE));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fixture.close();
+    }
+
+    @Benchmark
+    public int onEntityExplode() {
+        EntityExplodeEvent event = new EntityExplodeEvent(source, center, new ArrayList<>(blocks), 1.0F);
+        listener.onEntityExplode(event);
+        return event.blockList().size();
+    }
+}
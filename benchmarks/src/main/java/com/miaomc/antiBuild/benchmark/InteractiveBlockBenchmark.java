@@ -0,0 +1,77 @@
+package com.miaomc.antiBuild.benchmark;
+
+import com.miaomc.antiBuild.listeners.ProtectionListener;
+import org.bukkit.Material;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProtectionListener.isInteractiveBlockOptimized 的分类耗时
+ * <p>
+ * 该方法为私有方法，通过静态常量的方法句柄调用，JIT 编译后与直接调用相当。
+ * allMaterials 轮流查询全部材质，commonMaterials 只查询少量常见方块。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InteractiveBlockBenchmark {
+    private static final int SAMPLE_SIZE = 1 << 12;
+    private static final MethodHandle IS_INTERACTIVE = findIsInteractive();
+
+    private BenchmarkFixture fixture;
+    private ProtectionListener listener;
+    private Material[] allMaterials;
+    private Material[] commonMaterials;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        fixture = new BenchmarkFixture(0);
+        listener = fixture.getProtectionListener();
+
+        Material[] values = Material.values();
+        Material[] common = {Material.STONE, Material.DIRT, Material.CHEST, Material.OAK_DOOR,
+                Material.CRAFTING_TABLE, Material.GRASS_BLOCK, Material.LEVER, Material.OAK_PLANKS};
+        SplittableRandom random = new SplittableRandom(42);
+        allMaterials = new Material[SAMPLE_SIZE];
+        commonMaterials = new Material[SAMPLE_SIZE];
+        for (int i = 0; i < SAMPLE_SIZE; i++) {
+            allMaterials[i] = values[random.nextInt(values.length)];
+            commonMaterials[i] = common[random.nextInt(common.length)];
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fixture.close();
+    }
+
+    @Benchmark
+    public boolean allMaterials() throws Throwable {
+        return (boolean) IS_INTERACTIVE.invokeExact(listener, allMaterials[cursor++ & (SAMPLE_SIZE - 1)]);
+    }
+
+    @Benchmark
+    public boolean commonMaterials() throws Throwable {
+        return (boolean) IS_INTERACTIVE.invokeExact(listener, commonMaterials[cursor++ & (SAMPLE_SIZE - 1)]);
+    }
+
+    private static MethodHandle findIsInteractive() {
+        try {
+            Method method = ProtectionListener.class.getDeclaredMethod("isInteractiveBlockOptimized", Material.class);
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
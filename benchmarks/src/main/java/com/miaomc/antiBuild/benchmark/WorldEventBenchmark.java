@@ -0,0 +1,81 @@
+package com.miaomc.antiBuild.benchmark;
+
+import com.miaomc.antiBuild.listeners.ProtectionListener;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.event.block.BlockFromToEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 液体流动和活塞推动这类高频环境事件的单次处理耗时
+ * <p>
+ * inArea 为 true 时事件发生在区域网格内（所有区域均开启全部保护），否则位于没有区域的野外。
+ * 活塞每次推动 12 个方块，即原版上限。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class WorldEventBenchmark {
+    private static final int PUSH_LIMIT = 12;
+
+    @Param({"true", "false"})
+    public boolean inArea;
+
+    private BenchmarkFixture fixture;
+    private ProtectionListener listener;
+    private Block source;
+    private Block target;
+    private Block piston;
+    private List<Block> pushed;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        fixture = new BenchmarkFixture(10000);
+        listener = fixture.getProtectionListener();
+
+        World world = fixture.getWorld();
+        int originX = inArea ? fixture.areaOriginX(5050) : fixture.wildernessOrigin();
+        int originZ = inArea ? fixture.areaOriginZ(5050) : fixture.wildernessOrigin();
+        int y = BenchmarkFixture.MIN_Y + 5;
+
+        source = BukkitStubs.block(world, originX + 1, y, originZ + 1, Material.LAVA);
+        target = BukkitStubs.block(world, originX + 2, y, originZ + 1, Material.AIR);
+
+        // 活塞位于区域外侧，沿 x 方向把一排方块推入区域
+        piston = BukkitStubs.block(world, originX - PUSH_LIMIT - 1, y, originZ + 1, Material.PISTON);
+        pushed = new ArrayList<>(PUSH_LIMIT);
+        for (int i = 0; i < PUSH_LIMIT; i++) {
+            pushed.add(BukkitStubs.block(world, originX - PUSH_LIMIT + i, y, originZ + 1, Material.STONE));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fixture.close();
+    }
+
+    @Benchmark
+    public boolean onBlockFromTo() {
+        BlockFromToEvent event = new BlockFromToEvent(source, target);
+        listener.onBlockFromTo(event);
+        return event.isCancelled();
+    }
+
+    @Benchmark
+    public boolean onPistonExtend() {
+        BlockPistonExtendEvent event = new BlockPistonExtendEvent(piston, pushed, BlockFace.EAST);
+        listener.onPistonExtend(event);
+        return event.isCancelled();
+    }
+}
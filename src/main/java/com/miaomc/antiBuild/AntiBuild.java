@@ -3,19 +3,25 @@ package com.miaomc.antiBuild;
 import com.miaomc.antiBuild.commands.AntiBuildCommand;
 import com.miaomc.antiBuild.data.DataManager;
 import com.miaomc.antiBuild.listeners.ProtectionListener;
+import com.miaomc.antiBuild.listeners.WorldListener;
+import com.miaomc.antiBuild.player.PlayerTracker;
+import com.miaomc.antiBuild.stats.PerformanceStats;
 import org.bukkit.plugin.java.JavaPlugin;
 
 public final class AntiBuild extends JavaPlugin {
     private DataManager dataManager;
     private ProtectionListener protectionListener;
+    private PlayerTracker playerTracker;
+    private final PerformanceStats stats = new PerformanceStats();
 
     @Override
     public void onEnable() {
         // 保存默认配置文件
         saveDefaultConfig();
+        stats.setEnabled(getConfig().getBoolean("statistics.enabled", false));
 
         // 初始化数据管理器
-        dataManager = new DataManager(this);
+        dataManager = new DataManager(this, stats);
 
         // 注册命令
         AntiBuildCommand commandExecutor = new AntiBuildCommand(this, dataManager);
@@ -23,7 +29,10 @@ public final class AntiBuild extends JavaPlugin {
         getCommand("antibuild").setTabCompleter(commandExecutor);
 
         // 注册事件监听器
-        protectionListener = new ProtectionListener(this, dataManager);
+        getServer().getPluginManager().registerEvents(new WorldListener(dataManager), this);
+        playerTracker = new PlayerTracker(this, stats, dataManager);
+        getServer().getPluginManager().registerEvents(playerTracker, this);
+        protectionListener = new ProtectionListener(this, stats, dataManager, playerTracker);
         getServer().getPluginManager().registerEvents(protectionListener, this);
 
         getLogger().info("AntiBuild 插件已启用！");
@@ -44,14 +53,22 @@ public final class AntiBuild extends JavaPlugin {
         return dataManager;
     }
 
+    public PerformanceStats getStats() {
+        return stats;
+    }
+
     /**
      * 重新加载插件配置
      */
     public void reloadPluginConfig() {
         reloadConfig();
+        stats.setEnabled(getConfig().getBoolean("statistics.enabled", false));
         if (protectionListener != null) {
             protectionListener.reloadConfig();
         }
+        if (playerTracker != null) {
+            playerTracker.invalidateAllBypass();
+        }
         getLogger().info("配置已重新加载！");
     }
 }
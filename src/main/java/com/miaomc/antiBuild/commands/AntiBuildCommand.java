@@ -1,19 +1,36 @@
 package com.miaomc.antiBuild.commands;
 
 import com.miaomc.antiBuild.AntiBuild;
+import com.miaomc.antiBuild.data.AreaShape;
+import com.miaomc.antiBuild.data.CuboidShape;
+import com.miaomc.antiBuild.data.CylinderShape;
 import com.miaomc.antiBuild.data.DataManager;
+import com.miaomc.antiBuild.data.DataSnapshot;
+import com.miaomc.antiBuild.data.MultiCuboidShape;
+import com.miaomc.antiBuild.data.PolygonShape;
 import com.miaomc.antiBuild.data.ProtectedArea;
 import com.miaomc.antiBuild.data.ProtectedWorld;
+import com.miaomc.antiBuild.data.ProtectionFlag;
+import com.miaomc.antiBuild.stats.PerformanceStats;
 import org.bukkit.ChatColor;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitRunnable;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @SuppressWarnings("NullableProblems")
 public class AntiBuildCommand implements CommandExecutor, TabCompleter {
@@ -37,10 +54,19 @@ public class AntiBuildCommand implements CommandExecutor, TabCompleter {
             return true;
         }
 
-        return switch (args[0].toLowerCase()) {
+        String subCommand = args[0].toLowerCase();
+        if (!subCommand.equals("stats") && !dataManager.isLoaded()) {
+            sender.sendMessage(colorize(plugin.getConfig().getString("messages.data-not-loaded", "&c保护数据尚未加载完成，请稍后再试！")));
+            return true;
+        }
+
+        return switch (subCommand) {
             case "create" -> handleCreate(sender, args);
             case "area" -> handleArea(sender, args);
             case "world" -> handleWorld(sender, args);
+            case "stats" -> handleStats(sender, args);
+            case "export" -> handleExport(sender, args);
+            case "import" -> handleImport(sender, args);
             default -> {
                 sendUsage(sender);
                 yield true;
@@ -66,13 +92,11 @@ public class AntiBuildCommand implements CommandExecutor, TabCompleter {
                 dataManager.createArea(name, player.getWorld().getName());
                 String areaMessage = plugin.getConfig().getString("messages.area-created", "&a区域 &e{name} &a创建成功！");
                 sender.sendMessage(colorize(areaMessage.replace("{name}", name)));
-                dataManager.saveData();
                 break;
             case "world":
                 dataManager.createWorld(name);
                 String worldMessage = plugin.getConfig().getString("messages.world-created", "&a世界保护 &e{name} &a创建成功！");
                 sender.sendMessage(colorize(worldMessage.replace("{name}", name)));
-                dataManager.saveData();
                 break;
             default:
                 sender.sendMessage(colorize("&c用法: /antibuild create <area|world> <name>"));
@@ -83,7 +107,7 @@ public class AntiBuildCommand implements CommandExecutor, TabCompleter {
 
     private boolean handleArea(CommandSender sender, String[] args) {
         if (args.length < 3) {
-            sender.sendMessage(colorize("&c用法: /antibuild area <name> <seta|setb|anti>"));
+            sender.sendMessage(colorize("&c用法: /antibuild area <name> <seta|setb|shape|priority|anti>"));
             return true;
         }
 
@@ -104,30 +128,122 @@ public class AntiBuildCommand implements CommandExecutor, TabCompleter {
                     sender.sendMessage(colorize("&c只有玩家可以设置点！"));
                     return true;
                 }
-                area.setPointA(player.getLocation());
+                dataManager.setAreaPointA(area, player.getLocation());
                 String pointAMessage = plugin.getConfig().getString("messages.point-a-set", "&a区域 &e{name} &a的点A已设置！");
                 sender.sendMessage(colorize(pointAMessage.replace("{name}", areaName)));
-                dataManager.saveData();
                 break;
             case "setb":
                 if (!(sender instanceof Player playerB)) {
                     sender.sendMessage(colorize("&c只有玩家可以设置点！"));
                     return true;
                 }
-                area.setPointB(playerB.getLocation());
+                dataManager.setAreaPointB(area, playerB.getLocation());
                 String pointBMessage = plugin.getConfig().getString("messages.point-b-set", "&a区域 &e{name} &a的点B已设置！");
                 sender.sendMessage(colorize(pointBMessage.replace("{name}", areaName)));
-                dataManager.saveData();
+                break;
+            case "shape":
+                return handleShape(sender, args, area);
+            case "priority":
+                if (args.length < 4) {
+                    sender.sendMessage(colorize("&c用法: /antibuild area <name> priority <number>"));
+                    return true;
+                }
+                int priority;
+                try {
+                    priority = Integer.parseInt(args[3]);
+                } catch (NumberFormatException e) {
+                    sender.sendMessage(colorize("&c优先级必须是整数！"));
+                    return true;
+                }
+                dataManager.setAreaPriority(area, priority);
+                String priorityMessage = plugin.getConfig().getString("messages.priority-updated", "&a区域 &e{name} &a的优先级已设置为 &e{priority}&a！");
+                sender.sendMessage(colorize(priorityMessage.replace("{name}", areaName).replace("{priority}", String.valueOf(priority))));
                 break;
             case "anti":
                 return handleAntiSettings(sender, args, area, "area");
             default:
-                sender.sendMessage(colorize("&c用法: /antibuild area <name> <seta|setb|anti>"));
+                sender.sendMessage(colorize("&c用法: /antibuild area <name> <seta|setb|shape|priority|anti>"));
                 break;
         }
         return true;
     }
 
+    /**
+     * 设置区域形状，坐标均为方块坐标
+     */
+    private boolean handleShape(CommandSender sender, String[] args, ProtectedArea area) {
+        if (args.length < 4) {
+            sendShapeUsage(sender);
+            return true;
+        }
+
+        AreaShape shape;
+        try {
+            switch (args[3].toLowerCase()) {
+                case CuboidShape.TYPE -> shape = null;
+                case CylinderShape.TYPE -> {
+                    if (args.length < 9) {
+                        sendShapeUsage(sender);
+                        return true;
+                    }
+                    shape = new CylinderShape(Integer.parseInt(args[4]), Integer.parseInt(args[5]),
+                            Integer.parseInt(args[6]), Integer.parseInt(args[7]), Integer.parseInt(args[8]));
+                }
+                case PolygonShape.TYPE -> {
+                    if (args.length < 9) {
+                        sendShapeUsage(sender);
+                        return true;
+                    }
+                    int count = args.length - 6;
+                    int[] xs = new int[count];
+                    int[] zs = new int[count];
+                    for (int i = 0; i < count; i++) {
+                        String[] vertex = args[6 + i].split(",");
+                        if (vertex.length != 2) {
+                            throw new IllegalArgumentException("顶点格式应为 x,z: " + args[6 + i]);
+                        }
+                        xs[i] = Integer.parseInt(vertex[0]);
+                        zs[i] = Integer.parseInt(vertex[1]);
+                    }
+                    shape = new PolygonShape(Integer.parseInt(args[4]), Integer.parseInt(args[5]), xs, zs);
+                }
+                case "addcuboid" -> {
+                    // 将点A和点B围成的长方体加入长方体组
+                    if (area.getPointA() == null || area.getPointB() == null) {
+                        sender.sendMessage(colorize("&c请先设置点A和点B！"));
+                        return true;
+                    }
+                    CuboidShape part = CuboidShape.of(area.getPointA(), area.getPointB());
+                    shape = area.getShape() instanceof MultiCuboidShape multi ? multi.with(part) : new MultiCuboidShape(part);
+                }
+                default -> {
+                    sendShapeUsage(sender);
+                    return true;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // 包括 NumberFormatException
+            sender.sendMessage(colorize("&c形状参数无效: " + e.getMessage()));
+            return true;
+        }
+
+        dataManager.setAreaShape(area, shape);
+        String shapeName = shape != null ? shape.getType() : CuboidShape.TYPE;
+        if (shape instanceof MultiCuboidShape multi) {
+            shapeName += " (" + multi.getPartCount() + ")";
+        }
+        String message = plugin.getConfig().getString("messages.shape-updated", "&a区域 &e{name} &a的形状已设置为 &e{shape}&a！");
+        sender.sendMessage(colorize(message.replace("{name}", area.getName()).replace("{shape}", shapeName)));
+        return true;
+    }
+
+    private void sendShapeUsage(CommandSender sender) {
+        sender.sendMessage(colorize("&c用法: /antibuild area <name> shape cuboid"));
+        sender.sendMessage(colorize("&c      /antibuild area <name> shape cylinder <centerX> <centerZ> <radius> <minY> <maxY>"));
+        sender.sendMessage(colorize("&c      /antibuild area <name> shape polygon <minY> <maxY> <x,z> <x,z> <x,z>..."));
+        sender.sendMessage(colorize("&c      /antibuild area <name> shape addcuboid"));
+    }
+
     private boolean handleWorld(CommandSender sender, String[] args) {
         if (args.length < 3) {
             sender.sendMessage(colorize("&c用法: /antibuild world <name> <anti>"));
@@ -153,6 +269,126 @@ public class AntiBuildCommand implements CommandExecutor, TabCompleter {
         return true;
     }
 
+    private boolean handleStats(CommandSender sender, String[] args) {
+        PerformanceStats stats = plugin.getStats();
+        String action = args.length > 1 ? args[1].toLowerCase() : "show";
+
+        switch (action) {
+            case "show":
+                sender.sendMessage(colorize("&e=== AntiBuild 性能统计 ==="));
+                for (String line : stats.createReport()) {
+                    sender.sendMessage(colorize("&7" + line));
+                }
+                break;
+            case "reset":
+                stats.reset();
+                sender.sendMessage(colorize("&a性能统计已重置！"));
+                break;
+            case "dump":
+                List<String> report = stats.createReport();
+                File dumpFile = new File(plugin.getDataFolder(),
+                        "stats-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".txt");
+                new BukkitRunnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            Files.write(dumpFile.toPath(), report, StandardCharsets.UTF_8);
+                            plugin.getLogger().info("性能统计已导出到 " + dumpFile.getName());
+                        } catch (IOException e) {
+                            plugin.getLogger().severe("无法导出性能统计: " + e.getMessage());
+                        }
+                    }
+                }.runTaskAsynchronously(plugin);
+                sender.sendMessage(colorize("&a性能统计正在导出到 &e" + dumpFile.getName()));
+                break;
+            default:
+                sender.sendMessage(colorize("&c用法: /antibuild stats [reset|dump]"));
+                break;
+        }
+        return true;
+    }
+
+    private boolean handleExport(CommandSender sender, String[] args) {
+        File file = resolveYamlFile(args);
+        if (file == null) {
+            sender.sendMessage(colorize("&c文件名只能包含字母、数字、下划线和短横线"));
+            return true;
+        }
+
+        DataSnapshot snapshot = dataManager.createSnapshot();
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                try {
+                    dataManager.exportYaml(snapshot, file);
+                    plugin.getLogger().info("数据已导出到 " + file.getName());
+                } catch (IOException e) {
+                    plugin.getLogger().severe("无法导出数据: " + e.getMessage());
+                }
+            }
+        }.runTaskAsynchronously(plugin);
+        sender.sendMessage(colorize("&a数据正在导出到 &e" + file.getName()));
+        return true;
+    }
+
+    private boolean handleImport(CommandSender sender, String[] args) {
+        File file = resolveYamlFile(args);
+        if (file == null) {
+            sender.sendMessage(colorize("&c文件名只能包含字母、数字、下划线和短横线"));
+            return true;
+        }
+        if (!file.exists()) {
+            sender.sendMessage(colorize("&c文件 &e" + file.getName() + " &c不存在！"));
+            return true;
+        }
+
+        sender.sendMessage(colorize("&a正在从 &e" + file.getName() + " &a导入数据..."));
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                // 解析在异步线程完成，替换数据和回复玩家都回到主线程
+                Map<String, ProtectedArea> areas = new HashMap<>();
+                Map<String, ProtectedWorld> worlds = new HashMap<>();
+                try {
+                    dataManager.readYaml(file, areas, worlds);
+                } catch (IOException e) {
+                    plugin.getLogger().severe("无法导入数据: " + e.getMessage());
+                    String message = e.getMessage();
+                    new BukkitRunnable() {
+                        @Override
+                        public void run() {
+                            sender.sendMessage(colorize("&c导入失败: " + message));
+                        }
+                    }.runTask(plugin);
+                    return;
+                }
+
+                new BukkitRunnable() {
+                    @Override
+                    public void run() {
+                        dataManager.replaceAll(areas.values(), worlds.values());
+                        sender.sendMessage(colorize("&a已导入 &e" + areas.size() + " &a个区域和 &e" + worlds.size() + " &a个世界保护"));
+                    }
+                }.runTask(plugin);
+            }
+        }.runTaskAsynchronously(plugin);
+        return true;
+    }
+
+    /**
+     * 导入导出文件位于插件目录，默认为 export.yml
+     */
+    private File resolveYamlFile(String[] args) {
+        String name = args.length > 1 ? args[1] : "export";
+        if (name.endsWith(".yml")) {
+            name = name.substring(0, name.length() - 4);
+        }
+        if (!name.matches("[A-Za-z0-9_-]+")) {
+            return null;
+        }
+        return new File(plugin.getDataFolder(), name + ".yml");
+    }
+
     private boolean handleAntiSettings(CommandSender sender, String[] args, Object target, String type) {
         if (args.length < 5) {
             sender.sendMessage(colorize("&c用法: /antibuild " + type + " <name> anti <place|break|interaction|use> <true|false>"));
@@ -170,80 +406,16 @@ public class AntiBuildCommand implements CommandExecutor, TabCompleter {
         boolean enabled = Boolean.parseBoolean(value);
         String targetName = target instanceof ProtectedArea ? ((ProtectedArea) target).getName() : ((ProtectedWorld) target).getName();
 
-        switch (setting) {
-            case "place":
-                if (target instanceof ProtectedArea) {
-                    ((ProtectedArea) target).setAntiPlace(enabled);
-                } else {
-                    ((ProtectedWorld) target).setAntiPlace(enabled);
-                }
-                break;
-            case "break":
-                if (target instanceof ProtectedArea) {
-                    ((ProtectedArea) target).setAntiBreak(enabled);
-                } else {
-                    ((ProtectedWorld) target).setAntiBreak(enabled);
-                }
-                break;
-            case "interaction":
-                if (target instanceof ProtectedArea) {
-                    ((ProtectedArea) target).setAntiInteraction(enabled);
-                } else {
-                    ((ProtectedWorld) target).setAntiInteraction(enabled);
-                }
-                break;
-            case "use":
-                if (target instanceof ProtectedArea) {
-                    ((ProtectedArea) target).setAntiUse(enabled);
-                } else {
-                    ((ProtectedWorld) target).setAntiUse(enabled);
-                }
-                break;
-            case "explosion":
-                if (target instanceof ProtectedArea) {
-                    ((ProtectedArea) target).setAntiExplosion(enabled);
-                } else {
-                    ((ProtectedWorld) target).setAntiExplosion(enabled);
-                }
-                break;
-            case "fishing":
-                if (target instanceof ProtectedArea) {
-                    ((ProtectedArea) target).setAntiFishing(enabled);
-                } else {
-                    ((ProtectedWorld) target).setAntiFishing(enabled);
-                }
-                break;
-            case "animal-interact":
-                if (target instanceof ProtectedArea) {
-                    ((ProtectedArea) target).setAntiAnimalInteract(enabled);
-                } else {
-                    ((ProtectedWorld) target).setAntiAnimalInteract(enabled);
-                }
-                break;
-            case "throw":
-                if (target instanceof ProtectedArea) {
-                    ((ProtectedArea) target).setAntiThrow(enabled);
-                } else {
-                    ((ProtectedWorld) target).setAntiThrow(enabled);
-                }
-                break;
-            case "shoot":
-                if (target instanceof ProtectedArea) {
-                    ((ProtectedArea) target).setAntiShoot(enabled);
-                } else {
-                    ((ProtectedWorld) target).setAntiShoot(enabled);
-                }
-                break;
-            case "trample":
-                if (target instanceof ProtectedArea) {
-                    ((ProtectedArea) target).setAntiTrample(enabled);
-                } else {
-                    ((ProtectedWorld) target).setAntiTrample(enabled);
-                }
-                break;
-            default:
-                sender.sendMessage(colorize("&c无效的设置项: " + setting));
-                return true;
+        ProtectionFlag flag = ProtectionFlag.fromCommandName(setting);
+        if (flag == null) {
+            sender.sendMessage(colorize("&c无效的设置项: " + setting));
+            return true;
+        }
+
+        if (target instanceof ProtectedArea) {
+            dataManager.setAreaFlag((ProtectedArea) target, flag, enabled);
+        } else {
+            dataManager.setWorldFlag((ProtectedWorld) target, flag, enabled);
         }
 
         String settingMessage = plugin.getConfig().getString("messages.setting-updated",
@@ -253,8 +425,6 @@ public class AntiBuildCommand implements CommandExecutor, TabCompleter {
                 .replace("{name}", targetName)
                 .replace("{action}", setting)
                 .replace("{value}", value)));
-
-        dataManager.saveData();
         return true;
     }
 
@@ -264,8 +434,13 @@ public class AntiBuildCommand implements CommandExecutor, TabCompleter {
         sender.sendMessage(colorize("&a/antibuild create world <name> &7- 创建世界保护"));
         sender.sendMessage(colorize("&a/antibuild area <name> seta &7- 设置区域点A"));
         sender.sendMessage(colorize("&a/antibuild area <name> setb &7- 设置区域点B"));
+        sender.sendMessage(colorize("&a/antibuild area <name> shape <cuboid|cylinder|polygon|addcuboid> &7- 设置区域形状"));
+        sender.sendMessage(colorize("&a/antibuild area <name> priority <number> &7- 设置区域优先级（重叠时优先级高的区域决定提示）"));
         sender.sendMessage(colorize("&a/antibuild area <name> anti <place|break|interaction|use> <true|false>"));
         sender.sendMessage(colorize("&a/antibuild world <name> anti <place|break|interaction|use> <true|false>"));
+        sender.sendMessage(colorize("&a/antibuild stats [reset|dump] &7- 查看、重置或导出性能统计"));
+        sender.sendMessage(colorize("&a/antibuild export [file] &7- 将数据导出为 YAML 文件"));
+        sender.sendMessage(colorize("&a/antibuild import [file] &7- 从 YAML 文件导入并替换全部数据"));
     }
 
     @Override
@@ -273,9 +448,11 @@ public class AntiBuildCommand implements CommandExecutor, TabCompleter {
         List<String> completions = new ArrayList<>();
 
         if (args.length == 1) {
-            completions.addAll(Arrays.asList("create", "area", "world"));
+            completions.addAll(Arrays.asList("create", "area", "world", "stats", "export", "import"));
         } else if (args.length == 2) {
-            if ("create".equals(args[0])) {
+            if ("stats".equals(args[0])) {
+                completions.addAll(Arrays.asList("reset", "dump"));
+            } else if ("create".equals(args[0])) {
                 completions.addAll(Arrays.asList("area", "world"));
             } else if ("area".equals(args[0])) {
                 completions.addAll(dataManager.getAreaNames());
@@ -284,12 +461,14 @@ public class AntiBuildCommand implements CommandExecutor, TabCompleter {
             }
         } else if (args.length == 3) {
             if ("area".equals(args[0])) {
-                completions.addAll(Arrays.asList("seta", "setb", "anti"));
+                completions.addAll(Arrays.asList("seta", "setb", "shape", "priority", "anti"));
             } else if ("world".equals(args[0])) {
                 completions.add("anti");
             }
+        } else if (args.length == 4 && "shape".equals(args[2])) {
+            completions.addAll(Arrays.asList(CuboidShape.TYPE, CylinderShape.TYPE, PolygonShape.TYPE, "addcuboid"));
         } else if (args.length == 4 && "anti".equals(args[2])) {
-            completions.addAll(Arrays.asList("place", "break", "interaction", "use", "explosion", "fishing", "animal-interact", "throw", "shoot", "trample"));
+            completions.addAll(ProtectionFlag.getCommandNames());
         } else if (args.length == 5 && "anti".equals(args[2])) {
             completions.addAll(Arrays.asList("true", "false"));
         }
@@ -0,0 +1,111 @@
+package com.miaomc.antiBuild.data;
+
+/**
+ * 区域边界的不可变快照
+ * <p>
+ * 设置点A/点B或形状时整体替换，索引构建时持有当时的边界，
+ * 因此命令修改区域不会让正在使用的索引看到一半更新的数据。
+ * 包围盒为方块坐标闭区间，复制自形状以便直接比较；长方体以外的形状命中包围盒后再做精确判断。
+ */
+public final class AreaBounds {
+    private final ProtectedArea area;
+    private final AreaShape shape;
+    private final boolean exact; // 包围盒即形状本身，无需精确判断
+    private final int minX, maxX, minY, maxY, minZ, maxZ;
+
+    AreaBounds(ProtectedArea area, AreaShape shape) {
+        this.area = area;
+        this.shape = shape;
+        this.exact = shape instanceof CuboidShape;
+        this.minX = shape.getMinX();
+        this.maxX = shape.getMaxX();
+        this.minY = shape.getMinY();
+        this.maxY = shape.getMaxY();
+        this.minZ = shape.getMinZ();
+        this.maxZ = shape.getMaxZ();
+    }
+
+    /**
+     * 边界所属的区域
+     */
+    public ProtectedArea getArea() {
+        return area;
+    }
+
+    /**
+     * 区域的形状
+     */
+    public AreaShape getShape() {
+        return shape;
+    }
+
+    public boolean contains(int x, int y, int z) {
+        return x >= minX && x <= maxX &&
+                y >= minY && y <= maxY &&
+                z >= minZ && z <= maxZ &&
+                (exact || shape.contains(x, y, z));
+    }
+
+    /**
+     * 判断方块坐标范围（闭区间）是否整体属于区域，用于标记被区域完全覆盖的区块段
+     */
+    public boolean covers(int minBlockX, int minBlockY, int minBlockZ, int maxBlockX, int maxBlockY, int maxBlockZ) {
+        return minBlockX >= minX && maxBlockX <= maxX &&
+                minBlockY >= minY && maxBlockY <= maxY &&
+                minBlockZ >= minZ && maxBlockZ <= maxZ &&
+                (exact || shape.containsBox(minBlockX, minBlockY, minBlockZ, maxBlockX, maxBlockY, maxBlockZ));
+    }
+
+    /**
+     * 判断包围盒是否与方块坐标范围（闭区间）相交，用于批量检查前的预筛选
+     */
+    public boolean intersects(int minBlockX, int minBlockY, int minBlockZ, int maxBlockX, int maxBlockY, int maxBlockZ) {
+        return maxX >= minBlockX && minX <= maxBlockX &&
+                maxY >= minBlockY && minY <= maxBlockY &&
+                maxZ >= minBlockZ && minZ <= maxBlockZ;
+    }
+
+    /**
+     * 方块坐标边界，用于空间索引分桶和区块段覆盖计算
+     */
+    public int getMinBlockX() {
+        return minX;
+    }
+
+    public int getMaxBlockX() {
+        return maxX;
+    }
+
+    public int getMinBlockY() {
+        return minY;
+    }
+
+    public int getMaxBlockY() {
+        return maxY;
+    }
+
+    public int getMinBlockZ() {
+        return minZ;
+    }
+
+    public int getMaxBlockZ() {
+        return maxZ;
+    }
+
+    /**
+     * 区域包含的方块数
+     */
+    public long getVolume() {
+        return shape.getVolume();
+    }
+
+    /**
+     * 点到包围盒的最短距离平方，位于包围盒内时为 0
+     */
+    public double getDistanceSquared(double x, double y, double z) {
+        double dx = Math.max(0, Math.max(minX - x, x - (maxX + 1)));
+        double dy = Math.max(0, Math.max(minY - y, y - (maxY + 1)));
+        double dz = Math.max(0, Math.max(minZ - z, z - (maxZ + 1)));
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
@@ -0,0 +1,354 @@
+package com.miaomc.antiBuild.data;
+
+import com.miaomc.antiBuild.util.LongObjectMap;
+
+import java.util.*;
+
+/**
+ * 单个世界的区块空间索引
+ * <p>
+ * 将每个区块映射到与其相交的区域边界列表，查找时只需检查所在区块的少量候选区域，
+ * 与区域总数无关。跨越区块过多的超大区域单独存放，避免索引膨胀。候选区域按优先级排序。
+ * 每个区块还为 16x16x16 区块段预先计算查找结果：与区块段相交的区域都完整覆盖它（或没有区域与它相交）时，
+ * 段内任意方块的结果都相同，查找直接返回预先计算好的 {@link AreaMatch}，无需逐个检查区域。
+ * 索引构建完成后不再修改，可以在任意线程安全读取。
+ */
+public class AreaIndex {
+    // 单个区域最多登记的区块数，超过则放入超大区域列表（约 2048x2048 方块）
+    private static final long MAX_INDEXED_CHUNKS = 16384;
+    // 计算覆盖情况的区块段范围，覆盖 -64 到 319 的世界高度
+    static final int MIN_SECTION = -4;
+    static final int MAX_SECTION = 19;
+    private static final AreaBounds[] EMPTY = new AreaBounds[0];
+
+    static final AreaIndex EMPTY_INDEX = new AreaIndex(new LongObjectMap<>(), EMPTY, 0);
+
+    private final LongObjectMap<ChunkCell> chunkAreas;
+    private final AreaBounds[] oversizedAreas;
+    // 超大区域在区块坐标下的范围，每个区域依次为 minChunkX、minChunkZ、maxChunkX、maxChunkZ
+    private final int[] oversizedChunks;
+    private final int areaCount;
+
+    private AreaIndex(LongObjectMap<ChunkCell> chunkAreas, AreaBounds[] oversizedAreas, int areaCount) {
+        this.chunkAreas = chunkAreas;
+        this.oversizedAreas = oversizedAreas;
+        this.oversizedChunks = new int[oversizedAreas.length * 4];
+        for (int i = 0; i < oversizedAreas.length; i++) {
+            AreaBounds bounds = oversizedAreas[i];
+            oversizedChunks[i * 4] = bounds.getMinBlockX() >> 4;
+            oversizedChunks[i * 4 + 1] = bounds.getMinBlockZ() >> 4;
+            oversizedChunks[i * 4 + 2] = bounds.getMaxBlockX() >> 4;
+            oversizedChunks[i * 4 + 3] = bounds.getMaxBlockZ() >> 4;
+        }
+        this.areaCount = areaCount;
+    }
+
+    /**
+     * 根据区域当前的边界快照构建索引，未设置完整的区域会被忽略
+     */
+    public static AreaIndex build(Collection<ProtectedArea> areas) {
+        Map<Long, List<AreaBounds>> buckets = new HashMap<>();
+        List<AreaBounds> oversized = new ArrayList<>();
+        int count = 0;
+
+        // 按优先级顺序登记，每个区块的候选列表也就按优先级排列
+        List<ProtectedArea> ordered = new ArrayList<>(areas);
+        ordered.sort(AreaMatch.PRIORITY_ORDER);
+        for (ProtectedArea area : ordered) {
+            AreaBounds bounds = area.getBounds();
+            if (bounds == null) {
+                continue;
+            }
+            count++;
+
+            int minChunkX = bounds.getMinBlockX() >> 4;
+            int maxChunkX = bounds.getMaxBlockX() >> 4;
+            int minChunkZ = bounds.getMinBlockZ() >> 4;
+            int maxChunkZ = bounds.getMaxBlockZ() >> 4;
+
+            long chunkCount = (long) (maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1);
+            if (chunkCount > MAX_INDEXED_CHUNKS) {
+                oversized.add(bounds);
+                continue;
+            }
+
+            for (int cx = minChunkX; cx <= maxChunkX; cx++) {
+                for (int cz = minChunkZ; cz <= maxChunkZ; cz++) {
+                    buckets.computeIfAbsent(chunkKey(cx, cz), k -> new ArrayList<>(2)).add(bounds);
+                }
+            }
+        }
+
+        AreaBounds[] oversizedAreas = oversized.toArray(EMPTY);
+        LongObjectMap<ChunkCell> chunkAreas = new LongObjectMap<>(buckets.size());
+        // 相同的区域组合共用一个结果对象，大区域内的所有区块段只占一份
+        Map<List<ProtectedArea>, AreaMatch> matches = new HashMap<>();
+        for (Map.Entry<Long, List<AreaBounds>> entry : buckets.entrySet()) {
+            long key = entry.getKey();
+            AreaBounds[] candidates = entry.getValue().toArray(EMPTY);
+            chunkAreas.put(key, ChunkCell.build(candidates, oversizedAreas, (int) (key >> 32), (int) key, matches));
+        }
+
+        return new AreaIndex(chunkAreas, oversizedAreas, count);
+    }
+
+    /**
+     * 获取方块所在区块的候选区域（不含超大区域）
+     */
+    public AreaBounds[] getCandidates(int blockX, int blockZ) {
+        ChunkCell cell = chunkAreas.get(chunkKey(blockX >> 4, blockZ >> 4));
+        return cell != null ? cell.areas : EMPTY;
+    }
+
+    /**
+     * 获取方块所在区块段预先计算的查找结果，结果与逐个检查候选区域相同
+     *
+     * @return 区块段内结果一致时返回该结果，否则返回 null（需要调用 {@link #findMatch}）
+     */
+    public AreaMatch getSectionMatch(int blockX, int blockY, int blockZ) {
+        ChunkCell cell = chunkAreas.get(chunkKey(blockX >> 4, blockZ >> 4));
+        return cell != null ? cell.getSectionMatch(blockY >> 4) : null;
+    }
+
+    /**
+     * 区块中是否有区块段需要逐个检查区域，这样的区块在加载后值得构建 {@link ChunkLookup}
+     */
+    public boolean needsChunkLookup(int chunkX, int chunkZ) {
+        ChunkCell cell = chunkAreas.get(chunkKey(chunkX, chunkZ));
+        if (cell == null) {
+            return overlapsOversized(chunkX, chunkZ);
+        }
+        for (AreaMatch match : cell.sectionMatches) {
+            if (match == null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 为区块构建查找表，耗时与区块中需要逐个检查的区块段数量成正比，应在异步线程调用
+     *
+     * @return 区块不需要查找表或调色板超出上限时返回 null
+     */
+    public ChunkLookup buildChunkLookup(int chunkX, int chunkZ) {
+        if (!needsChunkLookup(chunkX, chunkZ)) {
+            return null;
+        }
+        // 只检查经过该区块的超大区域
+        AreaBounds[] oversized = getOversizedAreas(chunkX, chunkZ);
+        ChunkCell cell = chunkAreas.get(chunkKey(chunkX, chunkZ));
+        if (cell == null) {
+            // 只有超大区域经过的区块没有登记，这里临时计算区块段结果
+            cell = ChunkCell.build(EMPTY, oversized, chunkX, chunkZ, new HashMap<>());
+        }
+        return ChunkLookup.build(this, cell.areas, oversized, cell.sectionMatches, chunkX, chunkZ);
+    }
+
+    /**
+     * 区块的候选区域（包括经过的超大区域）是否与另一个索引中的完全相同
+     * <p>
+     * 区域的点、形状或优先级变化时会替换边界快照，因此候选相同时该区块的查找结果也相同。
+     */
+    boolean hasSameCandidates(AreaIndex other, int chunkX, int chunkZ) {
+        long key = chunkKey(chunkX, chunkZ);
+        ChunkCell cell = chunkAreas.get(key);
+        ChunkCell otherCell = other.chunkAreas.get(key);
+        return Arrays.equals(cell != null ? cell.areas : EMPTY, otherCell != null ? otherCell.areas : EMPTY)
+                && Arrays.equals(getOversizedAreas(chunkX, chunkZ), other.getOversizedAreas(chunkX, chunkZ));
+    }
+
+    /**
+     * 逐个检查所在区块的候选区域和超大区域，返回包含方块的全部区域
+     */
+    public AreaMatch findMatch(int blockX, int blockY, int blockZ) {
+        AreaBounds[] candidates = getCandidates(blockX, blockZ);
+        int count = countContaining(candidates, blockX, blockY, blockZ)
+                + countContaining(oversizedAreas, blockX, blockY, blockZ);
+        if (count == 0) {
+            return AreaMatch.NONE;
+        }
+
+        ProtectedArea[] found = new ProtectedArea[count];
+        int index = 0;
+        for (AreaBounds bounds : candidates) {
+            if (bounds.contains(blockX, blockY, blockZ)) {
+                found[index++] = bounds.getArea();
+            }
+        }
+        for (AreaBounds bounds : oversizedAreas) {
+            if (bounds.contains(blockX, blockY, blockZ)) {
+                found[index++] = bounds.getArea();
+            }
+        }
+        return AreaMatch.of(found);
+    }
+
+    private static int countContaining(AreaBounds[] candidates, int x, int y, int z) {
+        int count = 0;
+        for (AreaBounds bounds : candidates) {
+            if (bounds.contains(x, y, z)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 判断方块所在区块是否可能存在区域，返回 false 时可以直接断定该位置不受区域保护
+     */
+    public boolean hasCandidates(int blockX, int blockZ) {
+        int chunkX = blockX >> 4;
+        int chunkZ = blockZ >> 4;
+        return chunkAreas.containsKey(chunkKey(chunkX, chunkZ)) || overlapsOversized(chunkX, chunkZ);
+    }
+
+    /**
+     * 区块是否与任一超大区域的区块范围相交
+     */
+    private boolean overlapsOversized(int chunkX, int chunkZ) {
+        for (int i = 0; i < oversizedAreas.length; i++) {
+            if (oversizedContains(i, chunkX, chunkZ)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取区块范围包含指定区块的超大区域
+     */
+    private AreaBounds[] getOversizedAreas(int chunkX, int chunkZ) {
+        if (!overlapsOversized(chunkX, chunkZ)) {
+            return EMPTY;
+        }
+        List<AreaBounds> result = new ArrayList<>();
+        for (int i = 0; i < oversizedAreas.length; i++) {
+            if (oversizedContains(i, chunkX, chunkZ)) {
+                result.add(oversizedAreas[i]);
+            }
+        }
+        return result.toArray(EMPTY);
+    }
+
+    private boolean oversizedContains(int index, int chunkX, int chunkZ) {
+        int offset = index * 4;
+        return chunkX >= oversizedChunks[offset] && chunkZ >= oversizedChunks[offset + 1]
+                && chunkX <= oversizedChunks[offset + 2] && chunkZ <= oversizedChunks[offset + 3];
+    }
+
+    /**
+     * 查询与方块范围相交且设置了指定标志的区域，用于爆炸等批量检查
+     *
+     * @return 去重后的区域边界，没有时返回空数组
+     */
+    public AreaBounds[] query(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, ProtectionFlag flag) {
+        List<AreaBounds> result = null;
+
+        for (int cx = minX >> 4; cx <= maxX >> 4; cx++) {
+            for (int cz = minZ >> 4; cz <= maxZ >> 4; cz++) {
+                ChunkCell cell = chunkAreas.get(chunkKey(cx, cz));
+                if (cell != null) {
+                    result = collect(cell.areas, result, minX, minY, minZ, maxX, maxY, maxZ, flag);
+                }
+            }
+        }
+        result = collect(oversizedAreas, result, minX, minY, minZ, maxX, maxY, maxZ, flag);
+
+        return result != null ? result.toArray(EMPTY) : EMPTY;
+    }
+
+    private static List<AreaBounds> collect(AreaBounds[] candidates, List<AreaBounds> result,
+                                            int minX, int minY, int minZ, int maxX, int maxY, int maxZ,
+                                            ProtectionFlag flag) {
+        for (AreaBounds bounds : candidates) {
+            if (bounds.getArea().hasFlag(flag) && bounds.intersects(minX, minY, minZ, maxX, maxY, maxZ)) {
+                if (result == null) {
+                    result = new ArrayList<>(4);
+                }
+                // 区域可能跨越多个区块，结果很少，线性去重即可
+                if (!result.contains(bounds)) {
+                    result.add(bounds);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获取超大区域列表，这些区域不按区块登记，需要在每次查找时检查
+     */
+    public AreaBounds[] getOversizedAreas() {
+        return oversizedAreas;
+    }
+
+    public boolean isEmpty() {
+        return areaCount == 0;
+    }
+
+    static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 单个区块的索引数据：候选区域，以及各区块段预先计算的查找结果
+     */
+    private static final class ChunkCell {
+        final AreaBounds[] areas;
+        // 按区块段序号（减去 MIN_SECTION）索引，为 null 的区块段需要逐个检查区域
+        final AreaMatch[] sectionMatches;
+
+        private ChunkCell(AreaBounds[] areas, AreaMatch[] sectionMatches) {
+            this.areas = areas;
+            this.sectionMatches = sectionMatches;
+        }
+
+        AreaMatch getSectionMatch(int section) {
+            int index = section - MIN_SECTION;
+            return index >= 0 && index < sectionMatches.length ? sectionMatches[index] : null;
+        }
+
+        /**
+         * 与区块段相交的区域都完整覆盖它时，段内任意方块都恰好被这些区域包含
+         */
+        static ChunkCell build(AreaBounds[] areas, AreaBounds[] oversized, int chunkX, int chunkZ,
+                               Map<List<ProtectedArea>, AreaMatch> matches) {
+            int minX = chunkX << 4;
+            int minZ = chunkZ << 4;
+            AreaMatch[] sectionMatches = new AreaMatch[MAX_SECTION - MIN_SECTION + 1];
+            List<ProtectedArea> covering = new ArrayList<>();
+            for (int section = MIN_SECTION; section <= MAX_SECTION; section++) {
+                int minY = section << 4;
+                covering.clear();
+                if (collectCovering(areas, covering, minX, minY, minZ)
+                        && collectCovering(oversized, covering, minX, minY, minZ)) {
+                    if (covering.isEmpty()) {
+                        sectionMatches[section - MIN_SECTION] = AreaMatch.NONE;
+                    } else {
+                        covering.sort(AreaMatch.PRIORITY_ORDER);
+                        sectionMatches[section - MIN_SECTION] = matches.computeIfAbsent(List.copyOf(covering),
+                                list -> new AreaMatch(list.toArray(new ProtectedArea[0])));
+                    }
+                }
+            }
+            return new ChunkCell(areas, sectionMatches);
+        }
+
+        /**
+         * 收集与区块段相交的区域，有区域只覆盖了区块段的一部分时返回 false
+         */
+        private static boolean collectCovering(AreaBounds[] candidates, List<ProtectedArea> covering,
+                                               int minX, int minY, int minZ) {
+            for (AreaBounds bounds : candidates) {
+                if (!bounds.intersects(minX, minY, minZ, minX + 15, minY + 15, minZ + 15)) {
+                    continue;
+                }
+                if (!bounds.covers(minX, minY, minZ, minX + 15, minY + 15, minZ + 15)) {
+                    return false;
+                }
+                covering.add(bounds.getArea());
+            }
+            return true;
+        }
+    }
+}
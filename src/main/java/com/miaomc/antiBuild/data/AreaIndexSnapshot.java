@@ -0,0 +1,59 @@
+package com.miaomc.antiBuild.data;
+
+import java.util.*;
+
+/**
+ * 所有世界空间索引的不可变快照
+ * <p>
+ * 每次区域变化都会构建新的快照并整体发布，读取方拿到的快照始终是完整的，无需加锁。
+ * 只有已加载的世界才有索引，区域变化或世界加载、卸载时只重建对应世界的索引，其余世界沿用旧索引。
+ * 版本号随每次发布递增，缓存可据此判断自己是否已经过时。
+ */
+public final class AreaIndexSnapshot {
+    static final AreaIndexSnapshot EMPTY = new AreaIndexSnapshot(0, Collections.emptyMap());
+
+    private final long generation;
+    private final Map<String, AreaIndex> worldIndexes;
+
+    private AreaIndexSnapshot(long generation, Map<String, AreaIndex> worldIndexes) {
+        this.generation = generation;
+        this.worldIndexes = worldIndexes;
+    }
+
+    /**
+     * 替换部分世界的索引，其余世界沿用当前索引，版本号加一
+     *
+     * @param worldIndexes 世界名到新索引的映射，值为 null 或空索引表示释放该世界的索引
+     */
+    public AreaIndexSnapshot withWorlds(Map<String, AreaIndex> worldIndexes) {
+        Map<String, AreaIndex> merged = new HashMap<>(this.worldIndexes);
+        for (Map.Entry<String, AreaIndex> entry : worldIndexes.entrySet()) {
+            AreaIndex index = entry.getValue();
+            if (index == null || index.isEmpty()) {
+                merged.remove(entry.getKey());
+            } else {
+                merged.put(entry.getKey(), index);
+            }
+        }
+        return new AreaIndexSnapshot(generation + 1, Collections.unmodifiableMap(merged));
+    }
+
+    /**
+     * 获取世界的索引，世界没有区域时返回空索引
+     */
+    public AreaIndex getIndex(String worldName) {
+        AreaIndex index = worldIndexes.get(worldName);
+        return index != null ? index : AreaIndex.EMPTY_INDEX;
+    }
+
+    /**
+     * 当前持有索引的世界
+     */
+    public Set<String> getWorldNames() {
+        return worldIndexes.keySet();
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+}
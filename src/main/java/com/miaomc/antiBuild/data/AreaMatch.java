@@ -0,0 +1,94 @@
+package com.miaomc.antiBuild.data;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 某个位置的区域查找结果：包含该位置的全部区域（按优先级从高到低）及合并后的保护标志
+ * <p>
+ * 嵌套区域的保护取并集，任一区域禁止的操作都会被禁止；提示消息和进入/离开事件使用优先级最高的区域。
+ * 区域组合在索引构建时按区块段预先计算，标志则在读取时从区域本身取得，
+ * 修改标志后立即生效，无需等待索引重建。
+ */
+public final class AreaMatch {
+    /**
+     * 优先级从高到低，同优先级按名称排序，保证结果与存储顺序无关
+     */
+    static final Comparator<ProtectedArea> PRIORITY_ORDER = Comparator
+            .comparingInt(ProtectedArea::getPriority).reversed()
+            .thenComparing(ProtectedArea::getName);
+
+    public static final AreaMatch NONE = new AreaMatch(new ProtectedArea[0]);
+
+    private final ProtectedArea[] areas;
+
+    /**
+     * @param areas 已按 {@link #PRIORITY_ORDER} 排序的区域
+     */
+    AreaMatch(ProtectedArea[] areas) {
+        this.areas = areas;
+    }
+
+    /**
+     * 按优先级排序后创建结果
+     */
+    static AreaMatch of(ProtectedArea[] areas) {
+        if (areas.length == 0) {
+            return NONE;
+        }
+        if (areas.length > 1) {
+            Arrays.sort(areas, PRIORITY_ORDER);
+        }
+        return new AreaMatch(areas);
+    }
+
+    /**
+     * 优先级最高的区域，没有区域时返回 null
+     */
+    public ProtectedArea getPrimary() {
+        return areas.length > 0 ? areas[0] : null;
+    }
+
+    /**
+     * 包含该位置的全部区域，按优先级从高到低
+     */
+    public List<ProtectedArea> getAreas() {
+        return Collections.unmodifiableList(Arrays.asList(areas));
+    }
+
+    /**
+     * 全部区域当前保护标志的并集
+     */
+    public int getFlags() {
+        if (areas.length == 1) {
+            return areas[0].getFlags(); // 最常见的情况：只有一个区域
+        }
+        int merged = 0;
+        for (ProtectedArea area : areas) {
+            merged |= area.getFlags();
+        }
+        return merged;
+    }
+
+    public boolean hasFlag(ProtectionFlag flag) {
+        for (ProtectedArea area : areas) {
+            if (area.hasFlag(flag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        return areas.length == 0;
+    }
+
+    /**
+     * 两个结果是否由同一组区域组成，用于判断液体、活塞等是否跨越了保护边界
+     */
+    public boolean hasSameAreas(AreaMatch other) {
+        return this == other || Arrays.equals(areas, other.areas);
+    }
+}
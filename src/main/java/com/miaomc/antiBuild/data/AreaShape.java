@@ -0,0 +1,63 @@
+package com.miaomc.antiBuild.data;
+
+/**
+ * 区域形状，实现类均不可变
+ * <p>
+ * 每个形状提供方块坐标闭区间的包围盒，空间索引只按包围盒分桶，
+ * 命中包围盒后再调用 {@link #contains} 做精确判断，一个不规则区域在索引中只占一项。
+ */
+public interface AreaShape {
+    /**
+     * 形状类型，保存在数据文件中
+     */
+    String getType();
+
+    int getMinX();
+
+    int getMinY();
+
+    int getMinZ();
+
+    int getMaxX();
+
+    int getMaxY();
+
+    int getMaxZ();
+
+    /**
+     * 精确判断方块是否属于形状，调用方已确认方块位于包围盒内
+     */
+    boolean contains(int x, int y, int z);
+
+    /**
+     * 判断方块范围（闭区间，位于包围盒内）是否整体属于形状，无法快速确定时返回 false
+     */
+    default boolean containsBox(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        return false;
+    }
+
+    /**
+     * 形状包含的方块数，仅用于显示和排序，部分形状为估算值
+     */
+    long getVolume();
+
+    /**
+     * 形状参数，与类型一起保存，由 {@link #decode} 还原
+     */
+    int[] encode();
+
+    /**
+     * 根据类型和参数还原形状
+     *
+     * @throws IllegalArgumentException 类型未知或参数不合法
+     */
+    static AreaShape decode(String type, int[] data) {
+        return switch (type) {
+            case CuboidShape.TYPE -> CuboidShape.decode(data);
+            case CylinderShape.TYPE -> CylinderShape.decode(data);
+            case PolygonShape.TYPE -> PolygonShape.decode(data);
+            case MultiCuboidShape.TYPE -> MultiCuboidShape.decode(data);
+            default -> throw new IllegalArgumentException("未知的区域形状: " + type);
+        };
+    }
+}
@@ -0,0 +1,224 @@
+package com.miaomc.antiBuild.data;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * 紧凑的二进制数据文件（data.bin）
+ * <p>
+ * 文件结构：魔数、版本号、标志键表，随后依次是区域记录和世界记录。
+ * 标志位按文件头中的键表排列，新增或调整 {@link ProtectionFlag} 后旧文件仍能按键名正确映射。
+ * 版本 2 增加了区域形状，版本 3 增加了区域优先级，版本 4 将坐标改为 int，仍可读取旧版本的文件。
+ * 读取时整体映射到内存，按顺序解码，不经过 YAML 树和字符串路径查找。
+ */
+public final class BinaryDataStore {
+    private static final int MAGIC = 0x41424C44; // "ABLD"
+    private static final int VERSION = 4;
+
+    private static final int HAS_POINT_A = 1;
+    private static final int HAS_POINT_B = 1 << 1;
+    private static final int HAS_SHAPE = 1 << 2;
+
+    private BinaryDataStore() {
+    }
+
+    /**
+     * 将快照写入输出流，只刷新不关闭
+     */
+    public static void write(OutputStream stream, DataSnapshot snapshot) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+
+        ProtectionFlag[] flags = ProtectionFlag.values();
+        out.writeByte(flags.length);
+        for (ProtectionFlag flag : flags) {
+            writeString(out, flag.getConfigKey());
+        }
+
+        out.writeInt(snapshot.getAreas().size());
+        for (DataSnapshot.AreaRecord area : snapshot.getAreas()) {
+            writeString(out, area.name());
+            writeString(out, area.worldName());
+            out.writeByte((area.pointA() != null ? HAS_POINT_A : 0) | (area.pointB() != null ? HAS_POINT_B : 0)
+                    | (area.shape() != null ? HAS_SHAPE : 0));
+            if (area.pointA() != null) {
+                writePoint(out, area.pointA());
+            }
+            if (area.pointB() != null) {
+                writePoint(out, area.pointB());
+            }
+            if (area.shape() != null) {
+                writeShape(out, area.shape());
+            }
+            out.writeInt(area.flags());
+            out.writeInt(area.priority());
+        }
+
+        out.writeInt(snapshot.getWorlds().size());
+        for (DataSnapshot.WorldRecord world : snapshot.getWorlds()) {
+            writeString(out, world.name());
+            out.writeInt(world.flags());
+        }
+        out.flush();
+    }
+
+    /**
+     * 读取数据文件并放入给定的集合
+     *
+     * @return 读取的区域数
+     */
+    public static int read(Path file, Map<String, ProtectedArea> areas, Map<String, ProtectedWorld> worlds) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try {
+                return read(buffer, areas, worlds);
+            } catch (RuntimeException e) {
+                // 文件被截断或内容损坏
+                throw new IOException("数据文件已损坏: " + e, e);
+            }
+        }
+    }
+
+    private static int read(ByteBuffer buffer, Map<String, ProtectedArea> areas, Map<String, ProtectedWorld> worlds) throws IOException {
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("不是有效的 AntiBuild 数据文件");
+        }
+        int version = buffer.getInt();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("不支持的数据文件版本: " + version);
+        }
+
+        int[] flagMasks = readFlagTable(buffer);
+        boolean sameLayout = isCurrentLayout(flagMasks);
+        byte[] scratch = new byte[256];
+
+        int areaCount = buffer.getInt();
+        for (int i = 0; i < areaCount; i++) {
+            String name = readString(buffer, scratch);
+            String worldName = readString(buffer, scratch);
+            int presence = buffer.get();
+            ProtectedArea area = new ProtectedArea(name, worldName);
+            if ((presence & HAS_POINT_A) != 0) {
+                area.setPointA(readPoint(buffer, version));
+            }
+            if ((presence & HAS_POINT_B) != 0) {
+                area.setPointB(readPoint(buffer, version));
+            }
+            if ((presence & HAS_SHAPE) != 0) {
+                area.setShape(readShape(buffer, scratch));
+            }
+            int flags = buffer.getInt();
+            area.setFlags(sameLayout ? flags : remapFlags(flags, flagMasks));
+            if (version >= 3) {
+                area.setPriority(buffer.getInt());
+            }
+            areas.put(name, area);
+        }
+
+        int worldCount = buffer.getInt();
+        for (int i = 0; i < worldCount; i++) {
+            String worldName = readString(buffer, scratch);
+            int flags = buffer.getInt();
+            ProtectedWorld world = new ProtectedWorld(worldName);
+            world.setFlags(sameLayout ? flags : remapFlags(flags, flagMasks));
+            worlds.put(worldName, world);
+        }
+        return areaCount;
+    }
+
+    /**
+     * 读取标志键表，返回文件中每一位对应的当前掩码，未知的标志为 0
+     */
+    private static int[] readFlagTable(ByteBuffer buffer) {
+        byte[] scratch = new byte[64];
+        int count = buffer.get() & 0xFF;
+        int[] masks = new int[count];
+        for (int i = 0; i < count; i++) {
+            ProtectionFlag flag = ProtectionFlag.fromConfigKey(readString(buffer, scratch));
+            masks[i] = flag != null ? flag.getMask() : 0;
+        }
+        return masks;
+    }
+
+    private static boolean isCurrentLayout(int[] flagMasks) {
+        if (flagMasks.length != ProtectionFlag.values().length) {
+            return false;
+        }
+        for (int i = 0; i < flagMasks.length; i++) {
+            if (flagMasks[i] != 1 << i) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int remapFlags(int fileFlags, int[] flagMasks) {
+        int flags = 0;
+        for (int i = 0; i < flagMasks.length; i++) {
+            if ((fileFlags & (1 << i)) != 0) {
+                flags |= flagMasks[i];
+            }
+        }
+        return flags;
+    }
+
+    private static void writePoint(DataOutputStream out, BlockPoint point) throws IOException {
+        out.writeInt(point.x());
+        out.writeInt(point.y());
+        out.writeInt(point.z());
+    }
+
+    private static BlockPoint readPoint(ByteBuffer buffer, int version) {
+        if (version < 4) {
+            // 版本 4 之前的坐标以 double 保存
+            return BlockPoint.of(buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+        }
+        return new BlockPoint(buffer.getInt(), buffer.getInt(), buffer.getInt());
+    }
+
+    private static void writeShape(DataOutputStream out, AreaShape shape) throws IOException {
+        writeString(out, shape.getType());
+        int[] data = shape.encode();
+        out.writeInt(data.length);
+        for (int value : data) {
+            out.writeInt(value);
+        }
+    }
+
+    private static AreaShape readShape(ByteBuffer buffer, byte[] scratch) {
+        String type = readString(buffer, scratch);
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining() / Integer.BYTES) {
+            throw new IllegalArgumentException("形状参数长度错误: " + length);
+        }
+        int[] data = new int[length];
+        buffer.asIntBuffer().get(data);
+        buffer.position(buffer.position() + data.length * Integer.BYTES);
+        return AreaShape.decode(type, data);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("名称过长: " + value.substring(0, 32) + "...");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer, byte[] scratch) {
+        int length = buffer.getShort() & 0xFFFF;
+        byte[] bytes = length <= scratch.length ? scratch : new byte[length];
+        buffer.get(bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+}
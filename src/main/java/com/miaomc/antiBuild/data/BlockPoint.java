@@ -0,0 +1,20 @@
+package com.miaomc.antiBuild.data;
+
+import org.bukkit.Location;
+
+/**
+ * 区域角点的方块坐标，不引用世界对象，世界未加载时也可以保存和构建边界
+ */
+public record BlockPoint(int x, int y, int z) {
+
+    public static BlockPoint of(Location location) {
+        return new BlockPoint(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    /**
+     * 由数据文件中的坐标创建，兼容旧版本保存的小数坐标
+     */
+    public static BlockPoint of(double x, double y, double z) {
+        return new BlockPoint((int) Math.floor(x), (int) Math.floor(y), (int) Math.floor(z));
+    }
+}
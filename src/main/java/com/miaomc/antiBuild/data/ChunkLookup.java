@@ -0,0 +1,161 @@
+package com.miaomc.antiBuild.data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 单个已加载区块的区域查找表，在区块加载时由异步线程根据索引预先计算
+ * <p>
+ * 区块内出现的每种区域组合放入调色板，区块段内结果一致时只记录一个结果，
+ * 否则按方块记录调色板序号，每个序号按调色板大小只占 1 到 16 位（通常只有“无区域”和一个区域，即 1 位）。
+ * 查找只需一次数组读取和位运算，不分配对象。构建完成后不再修改，只对构建时使用的索引有效。
+ */
+public final class ChunkLookup {
+    private static final int BLOCKS_PER_SECTION = 4096;
+    private static final int MAX_PALETTE_SIZE = 1 << 16;
+
+    private final AreaIndex index;
+    // 按区块段序号（减去 MIN_SECTION）索引，为 null 的区块段按方块查找
+    private final AreaMatch[] sectionMatches;
+    private final long[][] sectionData;
+    private final AreaMatch[] palette;
+    private final int bitsShift;   // 每个序号占用 1 << bitsShift 位
+    private final int entriesShift; // 每个 long 存放 1 << entriesShift 个序号
+    private final int entryMask;
+
+    private ChunkLookup(AreaIndex index, AreaMatch[] sectionMatches, long[][] sectionData,
+                        AreaMatch[] palette, int bitsShift) {
+        this.index = index;
+        this.sectionMatches = sectionMatches;
+        this.sectionData = sectionData;
+        this.palette = palette;
+        this.bitsShift = bitsShift;
+        this.entriesShift = 6 - bitsShift;
+        this.entryMask = (int) ((1L << (1 << bitsShift)) - 1);
+    }
+
+    /**
+     * 按区块的候选区域逐个方块计算查找结果
+     *
+     * @param sectionMatches 索引中预先计算的区块段结果，此数组会被复用，不能再修改
+     * @return 调色板超出上限时返回 null，此时该区块只能逐个检查区域
+     */
+    static ChunkLookup build(AreaIndex index, AreaBounds[] candidates, AreaBounds[] oversized,
+                             AreaMatch[] sectionMatches, int chunkX, int chunkZ) {
+        int minX = chunkX << 4;
+        int minZ = chunkZ << 4;
+        int[][] rawEntries = new int[sectionMatches.length][];
+        List<AreaMatch> palette = new ArrayList<>();
+        Map<List<ProtectedArea>, Integer> paletteIndexes = new HashMap<>();
+        List<ProtectedArea> found = new ArrayList<>();
+
+        // 先用 int 记录序号，调色板确定后再按实际位数打包
+        for (int section = 0; section < sectionMatches.length; section++) {
+            if (sectionMatches[section] != null) {
+                continue;
+            }
+            int[] entries = new int[BLOCKS_PER_SECTION];
+            int minY = (section + AreaIndex.MIN_SECTION) << 4;
+            for (int i = 0; i < BLOCKS_PER_SECTION; i++) {
+                int x = minX + (i & 15);
+                int z = minZ + ((i >> 4) & 15);
+                int y = minY + (i >> 8);
+                found.clear();
+                collectContaining(candidates, found, x, y, z);
+                collectContaining(oversized, found, x, y, z);
+                if (found.size() > 1) {
+                    found.sort(AreaMatch.PRIORITY_ORDER);
+                }
+
+                Integer paletteIndex = paletteIndexes.get(found);
+                if (paletteIndex == null) {
+                    if (palette.size() == MAX_PALETTE_SIZE) {
+                        return null;
+                    }
+                    paletteIndex = palette.size();
+                    List<ProtectedArea> key = List.copyOf(found);
+                    palette.add(key.isEmpty() ? AreaMatch.NONE : new AreaMatch(key.toArray(new ProtectedArea[0])));
+                    paletteIndexes.put(key, paletteIndex);
+                }
+                entries[i] = paletteIndex;
+            }
+            rawEntries[section] = entries;
+        }
+
+        int bitsShift = bitsShiftFor(palette.size());
+        long[][] sectionData = new long[sectionMatches.length][];
+        for (int section = 0; section < rawEntries.length; section++) {
+            if (rawEntries[section] != null) {
+                sectionData[section] = pack(rawEntries[section], bitsShift);
+            }
+        }
+        return new ChunkLookup(index, sectionMatches, sectionData, palette.toArray(new AreaMatch[0]), bitsShift);
+    }
+
+    /**
+     * 获取方块的查找结果，方块位于预先计算的高度范围之外时返回 null
+     */
+    public AreaMatch get(int blockX, int blockY, int blockZ) {
+        int section = (blockY >> 4) - AreaIndex.MIN_SECTION;
+        if (section < 0 || section >= sectionMatches.length) {
+            return null;
+        }
+        AreaMatch match = sectionMatches[section];
+        if (match != null) {
+            return match;
+        }
+
+        int entry = ((blockY & 15) << 8) | ((blockZ & 15) << 4) | (blockX & 15);
+        long word = sectionData[section][entry >> entriesShift];
+        int offset = (entry & ((1 << entriesShift) - 1)) << bitsShift;
+        return palette[(int) (word >>> offset) & entryMask];
+    }
+
+    /**
+     * 查找表是否基于指定的索引构建，索引重建后旧的查找表不能再使用
+     */
+    public boolean isFor(AreaIndex index) {
+        return this.index == index;
+    }
+
+    /**
+     * 索引重建后沿用查找表：区块的候选区域没有变化时返回绑定到新索引的查找表，否则返回 null
+     */
+    ChunkLookup carryOver(AreaIndex newIndex, int chunkX, int chunkZ) {
+        if (!newIndex.hasSameCandidates(index, chunkX, chunkZ)) {
+            return null;
+        }
+        return new ChunkLookup(newIndex, sectionMatches, sectionData, palette, bitsShift);
+    }
+
+    private static void collectContaining(AreaBounds[] candidates, List<ProtectedArea> found, int x, int y, int z) {
+        for (AreaBounds bounds : candidates) {
+            if (bounds.contains(x, y, z)) {
+                found.add(bounds.getArea());
+            }
+        }
+    }
+
+    /**
+     * 序号位数取 2 的幂（1、2、4、8、16），序号不会跨越两个 long
+     */
+    private static int bitsShiftFor(int paletteSize) {
+        int bitsShift = 0;
+        while ((1 << (1 << bitsShift)) < paletteSize) {
+            bitsShift++;
+        }
+        return bitsShift;
+    }
+
+    private static long[] pack(int[] entries, int bitsShift) {
+        int entriesShift = 6 - bitsShift;
+        long[] data = new long[BLOCKS_PER_SECTION >> entriesShift];
+        for (int i = 0; i < BLOCKS_PER_SECTION; i++) {
+            int offset = (i & ((1 << entriesShift) - 1)) << bitsShift;
+            data[i >> entriesShift] |= (long) entries[i] << offset;
+        }
+        return data;
+    }
+}
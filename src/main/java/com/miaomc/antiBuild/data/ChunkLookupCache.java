@@ -0,0 +1,180 @@
+package com.miaomc.antiBuild.data;
+
+import com.miaomc.antiBuild.util.LongObjectMap;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * 已加载区块的 {@link ChunkLookup}，跟随区块加载和卸载增删
+ * <p>
+ * 区块加载时只登记请求，同一刻内的请求由一个异步任务集中构建，结果回到主线程发布。
+ * 区块卸载时立即丢弃查找表，缓存内容始终与玩家周围已加载的区块一致，不需要定时清理。
+ * 索引重建后，候选区域没有变化的区块沿用原有查找表，只有受修改影响的区块重新构建，期间的查找逐个检查区域。
+ * 查找表只在主线程读写。
+ */
+public class ChunkLookupCache {
+    private final Plugin plugin;
+    private final Function<String, AreaIndex> indexes;
+    private final Map<String, LongObjectMap<ChunkLookup>> lookups = new HashMap<>();
+    private final Queue<ChunkRequest> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean buildScheduled = new AtomicBoolean();
+
+    /**
+     * @param indexes 按世界名获取当前发布的索引
+     */
+    public ChunkLookupCache(Plugin plugin, Function<String, AreaIndex> indexes) {
+        this.plugin = plugin;
+        this.indexes = indexes;
+    }
+
+    /**
+     * 获取方块的预先计算结果，区块没有对应当前索引的查找表时返回 null
+     */
+    public AreaMatch get(String worldName, AreaIndex index, int blockX, int blockY, int blockZ) {
+        LongObjectMap<ChunkLookup> worldLookups = lookups.get(worldName);
+        if (worldLookups == null) {
+            return null;
+        }
+        ChunkLookup lookup = worldLookups.get(AreaIndex.chunkKey(blockX >> 4, blockZ >> 4));
+        return lookup != null && lookup.isFor(index) ? lookup.get(blockX, blockY, blockZ) : null;
+    }
+
+    public void onChunkLoad(String worldName, int chunkX, int chunkZ) {
+        // 没有区域或所有区块段都已由索引给出结果的区块不需要查找表
+        if (!indexes.apply(worldName).needsChunkLookup(chunkX, chunkZ)) {
+            return;
+        }
+        pending.add(new ChunkRequest(worldName, chunkX, chunkZ));
+        scheduleBuild();
+    }
+
+    public void onChunkUnload(String worldName, int chunkX, int chunkZ) {
+        LongObjectMap<ChunkLookup> worldLookups = lookups.get(worldName);
+        if (worldLookups != null) {
+            worldLookups.remove(AreaIndex.chunkKey(chunkX, chunkZ));
+            if (worldLookups.isEmpty()) {
+                lookups.remove(worldName);
+            }
+        }
+    }
+
+    public void onWorldUnload(String worldName) {
+        lookups.remove(worldName);
+    }
+
+    /**
+     * 索引发布后调用，可以在任意线程调用，重新构建在主线程登记
+     */
+    public void onIndexPublished(Collection<String> worldNames) {
+        List<String> worlds = new ArrayList<>(worldNames);
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                for (String worldName : worlds) {
+                    rebuildWorld(worldName);
+                }
+            }
+        }.runTask(plugin);
+    }
+
+    private void rebuildWorld(String worldName) {
+        World world = plugin.getServer().getWorld(worldName);
+        if (world == null) {
+            lookups.remove(worldName);
+            return;
+        }
+        AreaIndex index = indexes.apply(worldName);
+        LongObjectMap<ChunkLookup> worldLookups = lookups.get(worldName);
+        for (Chunk chunk : world.getLoadedChunks()) {
+            int chunkX = chunk.getX();
+            int chunkZ = chunk.getZ();
+            ChunkLookup lookup = null;
+            if (worldLookups != null) {
+                long key = AreaIndex.chunkKey(chunkX, chunkZ);
+                lookup = worldLookups.get(key);
+                if (lookup != null && !lookup.isFor(index)) {
+                    lookup = lookup.carryOver(index, chunkX, chunkZ);
+                    if (lookup != null) {
+                        worldLookups.put(key, lookup);
+                    } else {
+                        worldLookups.remove(key);
+                    }
+                }
+            }
+            if (lookup == null) {
+                onChunkLoad(worldName, chunkX, chunkZ);
+            }
+        }
+    }
+
+    private void scheduleBuild() {
+        if (!buildScheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                // 先清除标记再取出请求，之后登记的请求会安排新的任务
+                buildScheduled.set(false);
+                List<ChunkBuild> builds = buildPending();
+                if (builds.isEmpty()) {
+                    return;
+                }
+                new BukkitRunnable() {
+                    @Override
+                    public void run() {
+                        publish(builds);
+                    }
+                }.runTask(plugin);
+            }
+        }.runTaskAsynchronously(plugin);
+    }
+
+    private List<ChunkBuild> buildPending() {
+        List<ChunkBuild> builds = new ArrayList<>();
+        ChunkRequest request;
+        while ((request = pending.poll()) != null) {
+            ChunkLookup lookup = indexes.apply(request.worldName()).buildChunkLookup(request.chunkX(), request.chunkZ());
+            if (lookup != null) {
+                builds.add(new ChunkBuild(request, lookup));
+            }
+        }
+        return builds;
+    }
+
+    /**
+     * 只发布仍然加载着的区块，基于旧索引构建的结果直接丢弃（索引发布时已重新登记）
+     */
+    private void publish(List<ChunkBuild> builds) {
+        for (ChunkBuild build : builds) {
+            ChunkRequest request = build.request();
+            World world = plugin.getServer().getWorld(request.worldName());
+            if (world == null || !world.isChunkLoaded(request.chunkX(), request.chunkZ())) {
+                continue;
+            }
+            if (build.lookup().isFor(indexes.apply(request.worldName()))) {
+                put(build);
+            }
+        }
+    }
+
+    private void put(ChunkBuild build) {
+        ChunkRequest request = build.request();
+        lookups.computeIfAbsent(request.worldName(), k -> new LongObjectMap<>())
+                .put(AreaIndex.chunkKey(request.chunkX(), request.chunkZ()), build.lookup());
+    }
+
+    private record ChunkRequest(String worldName, int chunkX, int chunkZ) {
+    }
+
+    private record ChunkBuild(ChunkRequest request, ChunkLookup lookup) {
+    }
+}
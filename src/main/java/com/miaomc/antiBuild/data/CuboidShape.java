@@ -0,0 +1,90 @@
+package com.miaomc.antiBuild.data;
+
+/**
+ * 长方体，包围盒即形状本身，无需额外的精确判断
+ */
+public final class CuboidShape implements AreaShape {
+    public static final String TYPE = "cuboid";
+
+    private final int minX, minY, minZ, maxX, maxY, maxZ;
+
+    public CuboidShape(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        this.minX = Math.min(minX, maxX);
+        this.minY = Math.min(minY, maxY);
+        this.minZ = Math.min(minZ, maxZ);
+        this.maxX = Math.max(minX, maxX);
+        this.maxY = Math.max(minY, maxY);
+        this.maxZ = Math.max(minZ, maxZ);
+    }
+
+    /**
+     * 以两个角点所在的方块为对角的长方体
+     */
+    public static CuboidShape of(BlockPoint a, BlockPoint b) {
+        return new CuboidShape(a.x(), a.y(), a.z(), b.x(), b.y(), b.z());
+    }
+
+    static CuboidShape decode(int[] data) {
+        if (data.length != 6) {
+            throw new IllegalArgumentException("长方体参数数量错误");
+        }
+        return new CuboidShape(data[0], data[1], data[2], data[3], data[4], data[5]);
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public int getMinX() {
+        return minX;
+    }
+
+    @Override
+    public int getMinY() {
+        return minY;
+    }
+
+    @Override
+    public int getMinZ() {
+        return minZ;
+    }
+
+    @Override
+    public int getMaxX() {
+        return maxX;
+    }
+
+    @Override
+    public int getMaxY() {
+        return maxY;
+    }
+
+    @Override
+    public int getMaxZ() {
+        return maxZ;
+    }
+
+    @Override
+    public boolean contains(int x, int y, int z) {
+        return x >= minX && x <= maxX &&
+                y >= minY && y <= maxY &&
+                z >= minZ && z <= maxZ;
+    }
+
+    @Override
+    public boolean containsBox(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        return contains(minX, minY, minZ) && contains(maxX, maxY, maxZ);
+    }
+
+    @Override
+    public long getVolume() {
+        return (long) (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+    }
+
+    @Override
+    public int[] encode() {
+        return new int[]{minX, minY, minZ, maxX, maxY, maxZ};
+    }
+}
@@ -0,0 +1,98 @@
+package com.miaomc.antiBuild.data;
+
+/**
+ * 竖直圆柱，方块列与圆心的水平距离不超过半径即属于圆柱
+ */
+public final class CylinderShape implements AreaShape {
+    public static final String TYPE = "cylinder";
+
+    private final int centerX, centerZ, radius, minY, maxY;
+    private final long radiusSquared;
+
+    public CylinderShape(int centerX, int centerZ, int radius, int minY, int maxY) {
+        if (radius < 0) {
+            throw new IllegalArgumentException("半径不能为负数");
+        }
+        this.centerX = centerX;
+        this.centerZ = centerZ;
+        this.radius = radius;
+        this.minY = Math.min(minY, maxY);
+        this.maxY = Math.max(minY, maxY);
+        this.radiusSquared = (long) radius * radius;
+    }
+
+    static CylinderShape decode(int[] data) {
+        if (data.length != 5) {
+            throw new IllegalArgumentException("圆柱参数数量错误");
+        }
+        return new CylinderShape(data[0], data[1], data[2], data[3], data[4]);
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public int getMinX() {
+        return centerX - radius;
+    }
+
+    @Override
+    public int getMinY() {
+        return minY;
+    }
+
+    @Override
+    public int getMinZ() {
+        return centerZ - radius;
+    }
+
+    @Override
+    public int getMaxX() {
+        return centerX + radius;
+    }
+
+    @Override
+    public int getMaxY() {
+        return maxY;
+    }
+
+    @Override
+    public int getMaxZ() {
+        return centerZ + radius;
+    }
+
+    @Override
+    public boolean contains(int x, int y, int z) {
+        long dx = x - centerX;
+        long dz = z - centerZ;
+        return y >= minY && y <= maxY && dx * dx + dz * dz <= radiusSquared;
+    }
+
+    /**
+     * 圆柱的水平截面是凸的，四个角的方块都在圆内即整体在圆内
+     */
+    @Override
+    public boolean containsBox(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        return minY >= this.minY && maxY <= this.maxY
+                && contains(minX, minY, minZ) && contains(maxX, minY, minZ)
+                && contains(minX, minY, maxZ) && contains(maxX, minY, maxZ);
+    }
+
+    @Override
+    public long getVolume() {
+        // 逐列统计圆内的方块数
+        long columns = 0;
+        for (long dx = -radius; dx <= radius; dx++) {
+            long halfWidth = (long) Math.sqrt(radiusSquared - dx * dx);
+            columns += 2 * halfWidth + 1;
+        }
+        return columns * (maxY - minY + 1);
+    }
+
+    @Override
+    public int[] encode() {
+        return new int[]{centerX, centerZ, radius, minY, maxY};
+    }
+}
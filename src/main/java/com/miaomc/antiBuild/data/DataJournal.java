@@ -0,0 +1,156 @@
+package com.miaomc.antiBuild.data;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * 只追加的数据变更日志
+ * <p>
+ * 每次修改以一行制表符分隔的记录追加到日志文件，写入在单独的日志线程完成，不阻塞主线程。
+ * 压缩时在同一线程先写出完整快照再清空日志，因此压缩前排队的记录一定已包含在快照中，
+ * 之后的记录写入新日志。记录必须在快照之上按顺序回放：CREATE_AREA 和 CREATE_WORLD
+ * 与执行命令时一样，以空白数据替换同名的区域或世界保护，而不是幂等的“设置为某值”。
+ */
+public class DataJournal {
+    public static final String CREATE_AREA = "CREATE_AREA";
+    public static final String REMOVE_AREA = "REMOVE_AREA";
+    public static final String POINT_A = "POINT_A";
+    public static final String POINT_B = "POINT_B";
+    public static final String AREA_FLAG = "AREA_FLAG";
+    public static final String AREA_SHAPE = "AREA_SHAPE";
+    public static final String AREA_PRIORITY = "AREA_PRIORITY";
+    public static final String CREATE_WORLD = "CREATE_WORLD";
+    public static final String REMOVE_WORLD = "REMOVE_WORLD";
+    public static final String WORLD_FLAG = "WORLD_FLAG";
+    /** 清空全部数据，之后的记录描述整体替换后的完整数据 */
+    public static final String REPLACE_ALL = "REPLACE_ALL";
+
+    private static final String SEPARATOR = "\t";
+
+    private final File file;
+    private final Logger logger;
+    private final ExecutorService executor;
+    private Writer writer; // 仅在日志线程访问
+
+    public DataJournal(File file, Logger logger) {
+        this.file = file;
+        this.logger = logger;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "AntiBuild-Journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 读取日志中的全部记录，启动时在加载快照之后调用
+     *
+     * @return 回放的记录数
+     */
+    public int replay(Consumer<String[]> handler) {
+        if (!file.exists()) {
+            return 0;
+        }
+
+        int count = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    handler.accept(line.split(SEPARATOR, -1));
+                    count++;
+                } catch (RuntimeException e) {
+                    // 崩溃时最后一行可能只写了一半，跳过无法解析的记录
+                    logger.warning("跳过无法回放的日志记录: " + line + " (" + e.getMessage() + ")");
+                }
+            }
+        } catch (IOException e) {
+            logger.severe("无法读取数据日志: " + e.getMessage());
+        }
+        return count;
+    }
+
+    /**
+     * 追加一条记录，字段中不能包含制表符和换行
+     */
+    public void append(String... fields) {
+        String line = String.join(SEPARATOR, fields);
+        executor.execute(() -> {
+            try {
+                if (writer == null) {
+                    writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+                }
+                writer.write(line);
+                writer.write('\n');
+                writer.flush();
+            } catch (IOException e) {
+                logger.severe("无法写入数据日志: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 在日志线程写出完整快照并清空日志
+     *
+     * @param snapshotWriter 写出完整数据的操作，返回 false 表示写出失败，此时保留日志
+     */
+    public void compact(SnapshotWriter snapshotWriter) {
+        executor.execute(() -> compactNow(snapshotWriter));
+    }
+
+    private void compactNow(SnapshotWriter snapshotWriter) {
+        if (!snapshotWriter.write()) {
+            return;
+        }
+        try {
+            if (writer != null) {
+                writer.close();
+                writer = null;
+            }
+            // 以非追加方式打开即截断
+            new FileOutputStream(file, false).close();
+        } catch (IOException e) {
+            logger.severe("无法清空数据日志: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 等待排队的记录和压缩完成后关闭日志线程
+     */
+    public void close() {
+        executor.execute(() -> {
+            try {
+                if (writer != null) {
+                    writer.close();
+                    writer = null;
+                }
+            } catch (IOException e) {
+                logger.severe("无法关闭数据日志: " + e.getMessage());
+            }
+        });
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                logger.warning("数据日志在 30 秒内未能写完");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 写出完整数据快照的操作
+     */
+    @FunctionalInterface
+    public interface SnapshotWriter {
+        boolean write();
+    }
+}
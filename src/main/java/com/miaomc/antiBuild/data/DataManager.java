@@ -1,43 +1,82 @@
 package com.miaomc.antiBuild.data;
 
-import com.miaomc.antiBuild.AntiBuild;
+import com.miaomc.antiBuild.stats.PerformanceStats;
+import com.miaomc.antiBuild.util.AtomicFiles;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.Plugin;
 import org.bukkit.scheduler.BukkitRunnable;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
 
 public class DataManager {
-    private final AntiBuild plugin;
+    private final Plugin plugin;
+    private final PerformanceStats stats;
     private final Map<String, ProtectedArea> protectedAreas;
     private final Map<String, ProtectedWorld> protectedWorlds;
     private File dataFile;
-    private FileConfiguration dataConfig;
-
-    // 性能优化：添加空间索引缓存
-    private final Map<String, List<ProtectedArea>> worldAreaCache = new ConcurrentHashMap<>();
-    private final Map<String, ProtectedArea> locationCache = new ConcurrentHashMap<>();
-    private static final int MAX_LOCATION_CACHE_SIZE = 10000;
-    private static final long CACHE_CLEANUP_INTERVAL = 300000; // 5分钟
-
-    // 异步保存队列
-    private volatile boolean dataChanged = false;
+    // 二进制存储：storage.format 为 binary 时使用 data.bin 代替 data.yml
+    private final boolean binaryStorage;
+    private File binaryFile;
+
+    // 性能优化：按世界划分的区块空间索引，整体以不可变快照发布，读取无需加锁
+    private volatile AreaIndexSnapshot indexSnapshot = AreaIndexSnapshot.EMPTY;
+    private final AtomicLong requestedIndexGeneration = new AtomicLong();
+    private final Object indexBuildLock = new Object();
+    // 只为已加载的世界构建索引；区域或世界变化时标记对应世界，下次构建只重建这些世界
+    private final Set<String> loadedWorlds = ConcurrentHashMap.newKeySet();
+    private final Set<String> dirtyIndexWorlds = ConcurrentHashMap.newKeySet();
+    // 世界保护增删时递增，用于让按世界缓存的结果失效
+    private volatile long worldGeneration = 0;
+    // 每个世界开启的保护标志汇总（区域标志与世界标志的并集），事件先据此排除未开启相应保护的世界
+    private final Map<String, WorldFlagSummary> flagSummaries = new ConcurrentHashMap<>();
+    // 已加载区块的预先计算查找表，跟随区块加载和卸载增删
+    private final ChunkLookupCache chunkLookups;
+
+    // 启动加载：数据在后台加载，完成前不保存数据，fail-closed 世界按全部禁止处理
+    private volatile boolean loaded = false;
+    private final Set<String> failClosedWorlds;
+    private final Map<String, ProtectedWorld> failClosedPlaceholders = new ConcurrentHashMap<>();
+
+    // 异步保存：每次修改递增数据版本，写出成功后记录已保存的版本，两者不同即有未保存的修改
+    private final AtomicLong dataGeneration = new AtomicLong();
+    private volatile long savedGeneration = 0;
+    // 等待写出的最新快照，写出前的多次保存请求合并为一次
+    private final AtomicReference<DataSnapshot> pendingSave = new AtomicReference<>();
     private BukkitRunnable autoSaveTask;
+    // 变更日志：命令修改只追加一条记录，完整快照由定时压缩写出
+    private DataJournal journal;
 
-    public DataManager(AntiBuild plugin) {
+    public DataManager(Plugin plugin, PerformanceStats stats) {
         this.plugin = plugin;
+        this.stats = stats;
+        this.chunkLookups = new ChunkLookupCache(plugin, worldName -> indexSnapshot.getIndex(worldName));
         this.protectedAreas = new ConcurrentHashMap<>();  // 改为线程安全
         this.protectedWorlds = new ConcurrentHashMap<>(); // 改为线程安全
+        this.binaryStorage = "binary".equalsIgnoreCase(plugin.getConfig().getString("storage.format", "yaml"));
+        this.failClosedWorlds = new HashSet<>(plugin.getConfig().getStringList("startup.fail-closed-worlds"));
         setupDataFile();
-        loadData();
+        for (World world : Bukkit.getWorlds()) {
+            loadedWorlds.add(world.getName());
+        }
+        startLoading();
         startAutoSaveTask();
-        startCacheCleanupTask();
     }
 
     private void setupDataFile() {
@@ -52,138 +91,414 @@ public class DataManager {
                 plugin.getLogger().severe("无法创建数据文件: " + e.getMessage());
             }
         }
-        dataConfig = YamlConfiguration.loadConfiguration(dataFile);
+        binaryFile = new File(plugin.getDataFolder(), "data.bin");
+        journal = new DataJournal(new File(plugin.getDataFolder(), "data.journal"), plugin.getLogger());
     }
 
-    public void loadData() {
-        // 加载保护区域
-        if (dataConfig.contains("areas") && dataConfig.getConfigurationSection("areas") != null) {
-            for (String areaName : Objects.requireNonNull(dataConfig.getConfigurationSection("areas")).getKeys(false)) {
-                String path = "areas." + areaName + ".";
-                String worldName = dataConfig.getString(path + "world");
+    /**
+     * 在 ForkJoin 线程池加载数据并构建索引，完成后回到主线程一次性发布，启用插件不等待加载
+     * <p>
+     * 加载完成前 fail-closed-worlds 中的世界按全部禁止处理，其余世界暂不受保护。
+     */
+    private void startLoading() {
+        CompletableFuture.supplyAsync(this::loadAll, ForkJoinPool.commonPool())
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        // 保持未加载状态：不保存（避免用空数据覆盖文件），fail-closed 世界继续禁止
+                        plugin.getLogger().log(Level.SEVERE, "加载保护数据失败，数据不会被保存，请检查数据文件后重启", error);
+                        return;
+                    }
+                    // 标志汇总、世界保护等状态只在主线程修改，回到主线程发布
+                    new BukkitRunnable() {
+                        @Override
+                        public void run() {
+                            publishLoadedData(result);
+                        }
+                    }.runTask(plugin);
+                });
+    }
 
-                if (worldName == null) {
-                    plugin.getLogger().warning("区域 " + areaName + " 的世界名称为空，跳过加载");
-                    continue;
-                }
+    /**
+     * 读取数据文件、回放日志并为已加载的世界构建索引，不修改任何共享状态
+     */
+    private LoadResult loadAll() {
+        long start = System.nanoTime();
+        Map<String, ProtectedArea> areas = new HashMap<>();
+        Map<String, ProtectedWorld> worlds = new HashMap<>();
+        boolean migrated = loadData(areas, worlds);
+
+        int replayed = journal.replay(record -> applyJournalRecord(record, areas, worlds));
+        if (replayed > 0) {
+            plugin.getLogger().info("已从数据日志恢复 " + replayed + " 条修改");
+        }
 
-                ProtectedArea area = new ProtectedArea(areaName, worldName);
+        // 各世界的索引互不依赖，并行构建
+        Map<String, List<ProtectedArea>> byWorld = new HashMap<>();
+        for (ProtectedArea area : areas.values()) {
+            if (loadedWorlds.contains(area.getWorldName())) {
+                byWorld.computeIfAbsent(area.getWorldName(), k -> new ArrayList<>()).add(area);
+            }
+        }
+        Map<String, ForkJoinTask<AreaIndex>> tasks = new HashMap<>();
+        for (Map.Entry<String, List<ProtectedArea>> entry : byWorld.entrySet()) {
+            List<ProtectedArea> worldAreas = entry.getValue();
+            tasks.put(entry.getKey(), ForkJoinTask.adapt(() -> AreaIndex.build(worldAreas)));
+        }
+        ForkJoinTask.invokeAll(tasks.values());
 
-                // 加载点A
-                if (dataConfig.contains(path + "pointA")) {
-                    World world = Bukkit.getWorld(worldName);
-                    if (world != null) {
-                        double x = dataConfig.getDouble(path + "pointA.x");
-                        double y = dataConfig.getDouble(path + "pointA.y");
-                        double z = dataConfig.getDouble(path + "pointA.z");
-                        area.setPointA(new Location(world, x, y, z));
-                    }
-                }
+        Map<String, AreaIndex> worldIndexes = new HashMap<>();
+        for (Map.Entry<String, ForkJoinTask<AreaIndex>> entry : tasks.entrySet()) {
+            worldIndexes.put(entry.getKey(), entry.getValue().join());
+        }
 
-                // 加载点B
-                if (dataConfig.contains(path + "pointB")) {
-                    World world = Bukkit.getWorld(worldName);
-                    if (world != null) {
-                        double x = dataConfig.getDouble(path + "pointB.x");
-                        double y = dataConfig.getDouble(path + "pointB.y");
-                        double z = dataConfig.getDouble(path + "pointB.z");
-                        area.setPointB(new Location(world, x, y, z));
-                    }
-                }
+        plugin.getLogger().info("已加载 " + areas.size() + " 个区域和 " + worlds.size() + " 个世界保护，用时 "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return new LoadResult(areas, worlds, worldIndexes, migrated || replayed > 0);
+    }
 
-                // 加载保护设置
-                area.setAntiPlace(dataConfig.getBoolean(path + "antiPlace", false));
-                area.setAntiBreak(dataConfig.getBoolean(path + "antiBreak", false));
-                area.setAntiInteraction(dataConfig.getBoolean(path + "antiInteraction", false));
-                area.setAntiUse(dataConfig.getBoolean(path + "antiUse", false));
-                area.setAntiExplosion(dataConfig.getBoolean(path + "antiExplosion", false)); // 新增
-                area.setAntiFishing(dataConfig.getBoolean(path + "antiFishing", false));
-                area.setAntiAnimalInteract(dataConfig.getBoolean(path + "antiAnimalInteract", false));
-                area.setAntiThrow(dataConfig.getBoolean(path + "antiThrow", false));
-                area.setAntiShoot(dataConfig.getBoolean(path + "antiShoot", false));
-                area.setAntiTrample(dataConfig.getBoolean(path + "antiTrample", false));
-
-                protectedAreas.put(areaName, area);
+    /**
+     * 发布加载结果：先放入数据和索引，最后标记为已加载，必须在主线程调用
+     */
+    private void publishLoadedData(LoadResult result) {
+        protectedAreas.putAll(result.areas());
+        protectedWorlds.putAll(result.worlds());
+        rebuildFlagSummaries();
+        synchronized (indexBuildLock) {
+            indexSnapshot = indexSnapshot.withWorlds(result.worldIndexes());
+        }
+        chunkLookups.onIndexPublished(result.worldIndexes().keySet());
+        if (result.changed()) {
+            markDataChanged(); // 迁移或回放的修改在下次保存时写入数据文件
+        }
+        loaded = true;
+        worldGeneration++; // 让按世界缓存的加载占位结果失效
+
+        // 加载期间加载或卸载的世界，索引与当前状态不一致，补做一次构建
+        for (String worldName : loadedWorlds) {
+            if (!result.worldIndexes().containsKey(worldName)) {
+                dirtyIndexWorlds.add(worldName);
             }
         }
+        for (String worldName : result.worldIndexes().keySet()) {
+            if (!loadedWorlds.contains(worldName)) {
+                dirtyIndexWorlds.add(worldName);
+            }
+        }
+        if (!dirtyIndexWorlds.isEmpty()) {
+            scheduleIndexRebuild();
+        }
+    }
 
-        // 加载保护世界
-        if (dataConfig.contains("worlds") && dataConfig.getConfigurationSection("worlds") != null) {
-            for (String worldName : Objects.requireNonNull(dataConfig.getConfigurationSection("worlds")).getKeys(false)) {
-                String path = "worlds." + worldName + ".";
-
-                ProtectedWorld world = new ProtectedWorld(worldName);
-                world.setAntiPlace(dataConfig.getBoolean(path + "antiPlace", false));
-                world.setAntiBreak(dataConfig.getBoolean(path + "antiBreak", false));
-                world.setAntiInteraction(dataConfig.getBoolean(path + "antiInteraction", false));
-                world.setAntiUse(dataConfig.getBoolean(path + "antiUse", false));
-                world.setAntiExplosion(dataConfig.getBoolean(path + "antiExplosion", false));
-                world.setAntiFishing(dataConfig.getBoolean(path + "antiFishing", false));
-                world.setAntiAnimalInteract(dataConfig.getBoolean(path + "antiAnimalInteract", false));
-                world.setAntiThrow(dataConfig.getBoolean(path + "antiThrow", false));
-                world.setAntiShoot(dataConfig.getBoolean(path + "antiShoot", false));
-                world.setAntiTrample(dataConfig.getBoolean(path + "antiTrample", false));
-
-                protectedWorlds.put(worldName, world);
+    /**
+     * 按配置的格式读取数据文件，只有 data.bin 不存在时才读取 data.yml 进行迁移
+     * <p>
+     * data.bin 无法读取时按加载失败处理（保持未加载状态、不保存），
+     * 不会退回到可能已经过时的 data.yml。
+     *
+     * @return 是否从 data.yml 迁移到了二进制格式
+     */
+    private boolean loadData(Map<String, ProtectedArea> areas, Map<String, ProtectedWorld> worlds) {
+        try {
+            if (binaryStorage && binaryFile.exists()) {
+                BinaryDataStore.read(binaryFile.toPath(), areas, worlds);
+                return false;
             }
+            readYaml(dataFile, areas, worlds);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+        return binaryStorage && (!areas.isEmpty() || !worlds.isEmpty()); // 下次保存时写出 data.bin
     }
 
-    public void saveData() {
-        // 保存保护区域
-        for (ProtectedArea area : protectedAreas.values()) {
-            String path = "areas." + area.getName() + ".";
-            dataConfig.set(path + "world", area.getWorldName());
+    /**
+     * 流式读取 YAML 格式的数据文件，用于 data.yml 和导入命令
+     */
+    public void readYaml(File file, Map<String, ProtectedArea> areas, Map<String, ProtectedWorld> worlds) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            YamlStreamReader.read(reader, areas, worlds, plugin.getLogger());
+        }
+    }
 
-            if (area.getPointA() != null) {
-                dataConfig.set(path + "pointA.x", area.getPointA().getX());
-                dataConfig.set(path + "pointA.y", area.getPointA().getY());
-                dataConfig.set(path + "pointA.z", area.getPointA().getZ());
+    /**
+     * 将上次压缩之后的变更记录应用到加载中的数据，不会再次写入日志
+     */
+    private static void applyJournalRecord(String[] record, Map<String, ProtectedArea> areas, Map<String, ProtectedWorld> worlds) {
+        switch (record[0]) {
+            case DataJournal.CREATE_AREA -> areas.put(record[1], new ProtectedArea(record[1], record[2]));
+            case DataJournal.REMOVE_AREA -> areas.remove(record[1]);
+            case DataJournal.POINT_A, DataJournal.POINT_B -> {
+                ProtectedArea area = requireJournalArea(areas, record[1]);
+                BlockPoint point = BlockPoint.of(
+                        Double.parseDouble(record[2]), Double.parseDouble(record[3]), Double.parseDouble(record[4]));
+                if (DataJournal.POINT_A.equals(record[0])) {
+                    area.setPointA(point);
+                } else {
+                    area.setPointB(point);
+                }
             }
-
-            if (area.getPointB() != null) {
-                dataConfig.set(path + "pointB.x", area.getPointB().getX());
-                dataConfig.set(path + "pointB.y", area.getPointB().getY());
-                dataConfig.set(path + "pointB.z", area.getPointB().getZ());
+            case DataJournal.AREA_SHAPE -> requireJournalArea(areas, record[1])
+                    .setShape(record[2].isEmpty() ? null : AreaShape.decode(record[2], parseShapeData(record[3])));
+            case DataJournal.AREA_PRIORITY -> requireJournalArea(areas, record[1]).setPriority(Integer.parseInt(record[2]));
+            case DataJournal.AREA_FLAG -> requireJournalArea(areas, record[1])
+                    .setFlag(requireJournalFlag(record[2]), Boolean.parseBoolean(record[3]));
+            case DataJournal.CREATE_WORLD -> worlds.put(record[1], new ProtectedWorld(record[1]));
+            case DataJournal.REMOVE_WORLD -> worlds.remove(record[1]);
+            case DataJournal.REPLACE_ALL -> {
+                areas.clear();
+                worlds.clear();
             }
+            case DataJournal.WORLD_FLAG -> {
+                ProtectedWorld world = worlds.get(record[1]);
+                if (world == null) {
+                    throw new IllegalArgumentException("世界保护不存在");
+                }
+                world.setFlag(requireJournalFlag(record[2]), Boolean.parseBoolean(record[3]));
+            }
+            default -> throw new IllegalArgumentException("未知的记录类型");
+        }
+    }
 
-            dataConfig.set(path + "antiPlace", area.isAntiPlace());
-            dataConfig.set(path + "antiBreak", area.isAntiBreak());
-            dataConfig.set(path + "antiInteraction", area.isAntiInteraction());
-            dataConfig.set(path + "antiUse", area.isAntiUse());
-            dataConfig.set(path + "antiExplosion", area.isAntiExplosion());
-            dataConfig.set(path + "antiFishing", area.isAntiFishing());
-            dataConfig.set(path + "antiAnimalInteract", area.isAntiAnimalInteract());
-            dataConfig.set(path + "antiThrow", area.isAntiThrow());
-            dataConfig.set(path + "antiShoot", area.isAntiShoot());
-            dataConfig.set(path + "antiTrample", area.isAntiTrample());
+    private static int[] parseShapeData(String value) {
+        if (value.isEmpty()) {
+            return new int[0];
         }
+        return Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+    }
 
-        // 保存保护世界
-        for (ProtectedWorld world : protectedWorlds.values()) {
-            String path = "worlds." + world.getName() + ".";
-            dataConfig.set(path + "antiPlace", world.isAntiPlace());
-            dataConfig.set(path + "antiBreak", world.isAntiBreak());
-            dataConfig.set(path + "antiInteraction", world.isAntiInteraction());
-            dataConfig.set(path + "antiUse", world.isAntiUse());
-            dataConfig.set(path + "antiExplosion", world.isAntiExplosion());
-            dataConfig.set(path + "antiFishing", world.isAntiFishing());
-            dataConfig.set(path + "antiAnimalInteract", world.isAntiAnimalInteract());
-            dataConfig.set(path + "antiThrow", world.isAntiThrow());
-            dataConfig.set(path + "antiShoot", world.isAntiShoot());
-            dataConfig.set(path + "antiTrample", world.isAntiTrample());
+    private static ProtectedArea requireJournalArea(Map<String, ProtectedArea> areas, String name) {
+        ProtectedArea area = areas.get(name);
+        if (area == null) {
+            throw new IllegalArgumentException("区域不存在");
+        }
+        return area;
+    }
+
+    private static ProtectionFlag requireJournalFlag(String configKey) {
+        ProtectionFlag flag = ProtectionFlag.fromConfigKey(configKey);
+        if (flag == null) {
+            throw new IllegalArgumentException("未知的保护设置");
         }
+        return flag;
+    }
 
+    /**
+     * 复制当前数据，应在主线程调用
+     */
+    public DataSnapshot createSnapshot() {
+        return DataSnapshot.capture(protectedAreas.values(), protectedWorlds.values(), dataGeneration.get());
+    }
+
+    /**
+     * 将快照写入临时文件后原子替换数据文件，在日志线程调用
+     */
+    private boolean writeSnapshot(DataSnapshot snapshot) {
         try {
-            dataConfig.save(dataFile);
+            if (binaryStorage) {
+                AtomicFiles.write(binaryFile.toPath(), out -> BinaryDataStore.write(out, snapshot));
+            } else {
+                YamlConfiguration config = new YamlConfiguration();
+                writeYaml(config, snapshot);
+                byte[] content = config.saveToString().getBytes(StandardCharsets.UTF_8);
+                AtomicFiles.write(dataFile.toPath(), out -> out.write(content));
+            }
+            return true;
         } catch (IOException e) {
             plugin.getLogger().severe("无法保存数据文件: " + e.getMessage());
+            return false;
         }
     }
 
+    /**
+     * 将快照导出为 YAML 文件，格式与 data.yml 相同
+     */
+    public void exportYaml(DataSnapshot snapshot, File file) throws IOException {
+        YamlConfiguration config = new YamlConfiguration();
+        writeYaml(config, snapshot);
+        config.save(file);
+    }
+
+    private void writeYaml(FileConfiguration config, DataSnapshot snapshot) {
+        // 保存保护区域
+        for (DataSnapshot.AreaRecord area : snapshot.getAreas()) {
+            String path = "areas." + area.name() + ".";
+            config.set(path + "world", area.worldName());
+
+            if (area.pointA() != null) {
+                config.set(path + "pointA.x", area.pointA().x());
+                config.set(path + "pointA.y", area.pointA().y());
+                config.set(path + "pointA.z", area.pointA().z());
+            }
+
+            if (area.pointB() != null) {
+                config.set(path + "pointB.x", area.pointB().x());
+                config.set(path + "pointB.y", area.pointB().y());
+                config.set(path + "pointB.z", area.pointB().z());
+            }
+
+            if (area.priority() != 0) {
+                config.set(path + "priority", area.priority());
+            }
+
+            if (area.shape() != null) {
+                config.set(path + "shape.type", area.shape().getType());
+                config.set(path + "shape.data", Arrays.stream(area.shape().encode()).boxed().toList());
+            }
+
+            for (ProtectionFlag flag : ProtectionFlag.values()) {
+                config.set(path + flag.getConfigKey(), flag.isSet(area.flags()));
+            }
+        }
+
+        // 保存保护世界
+        for (DataSnapshot.WorldRecord world : snapshot.getWorlds()) {
+            String path = "worlds." + world.name() + ".";
+            for (ProtectionFlag flag : ProtectionFlag.values()) {
+                config.set(path + flag.getConfigKey(), flag.isSet(world.flags()));
+            }
+        }
+    }
+
+    /**
+     * 用导入的数据整体替换当前数据，必须在主线程调用
+     */
+    public void replaceAll(Collection<ProtectedArea> areas, Collection<ProtectedWorld> worlds) {
+        protectedAreas.clear();
+        protectedWorlds.clear();
+        for (ProtectedArea area : areas) {
+            protectedAreas.put(area.getName(), area);
+        }
+        for (ProtectedWorld world : worlds) {
+            protectedWorlds.put(world.getWorldName(), world);
+        }
+        // 先把完整的新数据写入日志，压缩完成前崩溃也不会丢失导入或把后续记录回放到旧数据上
+        journal.append(DataJournal.REPLACE_ALL);
+        for (ProtectedArea area : areas) {
+            journalArea(area);
+        }
+        for (ProtectedWorld world : worlds) {
+            journalWorld(world);
+        }
+        worldGeneration++;
+        rebuildFlagSummaries();
+        requestFullIndexRebuild();
+        markDataChanged();
+        saveDataAsync(); // 立即压缩，避免日志过长
+    }
+
     // 区域管理方法
     public void createArea(String name, String worldName) {
-        protectedAreas.put(name, new ProtectedArea(name, worldName));
+        ProtectedArea previous = protectedAreas.put(name, new ProtectedArea(name, worldName));
+        if (previous != null) {
+            // 同名区域被替换，新区域没有任何标志
+            getFlagSummary(previous.getWorldName()).removeArea(previous.getFlags());
+            if (!previous.getWorldName().equals(worldName)) {
+                requestIndexRebuild(previous.getWorldName());
+            }
+        }
+        journal.append(DataJournal.CREATE_AREA, name, worldName);
+        requestIndexRebuild(worldName);
+        markDataChanged();
+    }
+
+    /**
+     * 设置区域点A并记录到日志
+     */
+    public void setAreaPointA(ProtectedArea area, Location location) {
+        area.setPointA(location);
+        journalPoint(DataJournal.POINT_A, area, area.getPointA());
+        refreshArea(area);
+    }
+
+    /**
+     * 设置区域点B并记录到日志
+     */
+    public void setAreaPointB(ProtectedArea area, Location location) {
+        area.setPointB(location);
+        journalPoint(DataJournal.POINT_B, area, area.getPointB());
+        refreshArea(area);
+    }
+
+    /**
+     * 修改区域保护设置并记录到日志
+     */
+    public void setAreaFlag(ProtectedArea area, ProtectionFlag flag, boolean enabled) {
+        if (area.hasFlag(flag) != enabled) {
+            getFlagSummary(area.getWorldName()).setAreaFlag(flag, enabled);
+        }
+        area.setFlag(flag, enabled);
+        journal.append(DataJournal.AREA_FLAG, area.getName(), flag.getConfigKey(), String.valueOf(enabled));
+        markDataChanged(); // 查找结果的标志在读取时取自区域，不需要重建索引
+    }
+
+    /**
+     * 设置区域优先级并记录到日志，区域重叠时优先级高的区域决定提示消息和进入/离开事件
+     */
+    public void setAreaPriority(ProtectedArea area, int priority) {
+        area.setPriority(priority);
+        journal.append(DataJournal.AREA_PRIORITY, area.getName(), String.valueOf(priority));
+        refreshArea(area);
+    }
+
+    /**
+     * 设置区域形状并记录到日志，传入 null 恢复为点A和点B围成的长方体
+     */
+    public void setAreaShape(ProtectedArea area, AreaShape shape) {
+        area.setShape(shape);
+        journalShape(area, shape);
+        refreshArea(area);
+    }
+
+    private void journalShape(ProtectedArea area, AreaShape shape) {
+        if (shape == null) {
+            journal.append(DataJournal.AREA_SHAPE, area.getName(), "", "");
+            return;
+        }
+        StringJoiner data = new StringJoiner(",");
+        for (int value : shape.encode()) {
+            data.add(String.valueOf(value));
+        }
+        journal.append(DataJournal.AREA_SHAPE, area.getName(), shape.getType(), data.toString());
+    }
+
+    private void journalPoint(String type, ProtectedArea area, BlockPoint point) {
+        journal.append(type, area.getName(),
+                String.valueOf(point.x()), String.valueOf(point.y()), String.valueOf(point.z()));
+    }
+
+    /**
+     * 记录区域的完整状态，用于整体添加的区域
+     */
+    private void journalArea(ProtectedArea area) {
+        journal.append(DataJournal.CREATE_AREA, area.getName(), area.getWorldName());
+        if (area.getPointA() != null) {
+            journalPoint(DataJournal.POINT_A, area, area.getPointA());
+        }
+        if (area.getPointB() != null) {
+            journalPoint(DataJournal.POINT_B, area, area.getPointB());
+        }
+        if (area.getShape() != null) {
+            journalShape(area, area.getShape());
+        }
+        if (area.getPriority() != 0) {
+            journal.append(DataJournal.AREA_PRIORITY, area.getName(), String.valueOf(area.getPriority()));
+        }
+        for (ProtectionFlag flag : ProtectionFlag.values()) {
+            if (area.hasFlag(flag)) {
+                journal.append(DataJournal.AREA_FLAG, area.getName(), flag.getConfigKey(), "true");
+            }
+        }
+    }
+
+    /**
+     * 记录世界保护的完整状态
+     */
+    private void journalWorld(ProtectedWorld world) {
+        journal.append(DataJournal.CREATE_WORLD, world.getWorldName());
+        for (ProtectionFlag flag : ProtectionFlag.values()) {
+            if (world.hasFlag(flag)) {
+                journal.append(DataJournal.WORLD_FLAG, world.getWorldName(), flag.getConfigKey(), "true");
+            }
+        }
     }
 
     public ProtectedArea getArea(String name) {
@@ -201,6 +516,20 @@ public class DataManager {
     // 世界管理方法
     public void createWorld(String name) {
         protectedWorlds.put(name, new ProtectedWorld(name));
+        journal.append(DataJournal.CREATE_WORLD, name);
+        getFlagSummary(name).setWorldFlags(0); // 重新创建时清除旧世界保护的标志
+        worldGeneration++;
+        markDataChanged();
+    }
+
+    /**
+     * 修改世界保护设置并记录到日志
+     */
+    public void setWorldFlag(ProtectedWorld world, ProtectionFlag flag, boolean enabled) {
+        world.setFlag(flag, enabled);
+        journal.append(DataJournal.WORLD_FLAG, world.getWorldName(), flag.getConfigKey(), String.valueOf(enabled));
+        getFlagSummary(world.getWorldName()).setWorldFlags(world.getFlags());
+        markDataChanged();
     }
 
     public ProtectedWorld getWorld(String name) {
@@ -216,129 +545,311 @@ public class DataManager {
     }
 
     /**
-     * 性能优化：使用缓存的位置查找方法
+     * 获取位置所在的优先级最高的区域
      */
     public ProtectedArea getProtectedAreaAt(Location location) {
+        return getAreaMatchAt(location).getPrimary();
+    }
+
+    /**
+     * 性能优化：使用缓存的位置查找方法，返回包含该位置的全部区域及合并后的保护标志
+     */
+    public AreaMatch getAreaMatchAt(Location location) {
         if (location == null || location.getWorld() == null) {
-            return null;
+            return AreaMatch.NONE;
+        }
+        return getAreaMatchAt(location.getWorld().getName(),
+                location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    /**
+     * 按方块坐标查找，供液体流动、活塞等高频事件使用，不创建 Location
+     */
+    public AreaMatch getAreaMatchAt(String worldName, int blockX, int blockY, int blockZ) {
+        // 所在区块没有任何区域时直接返回，无需查缓存或检查区域
+        AreaIndex index = indexSnapshot.getIndex(worldName);
+        if (!index.hasCandidates(blockX, blockZ)) {
+            stats.recordEmptyChunkSkip();
+            return AreaMatch.NONE;
         }
 
-        String locationKey = locationToString(location);
+        // 所在区块段的结果已预先计算（如大区域内部）时直接返回，不占用缓存
+        AreaMatch sectionMatch = index.getSectionMatch(blockX, blockY, blockZ);
+        if (sectionMatch != null) {
+            stats.recordCoveredSectionHit();
+            return sectionMatch;
+        }
 
-        // 先检查位置缓存
-        ProtectedArea cachedArea = locationCache.get(locationKey);
-        if (cachedArea != null) {
-            return cachedArea;
+        // 区块加载时预先计算的查找表
+        AreaMatch precomputed = chunkLookups.get(worldName, index, blockX, blockY, blockZ);
+        if (precomputed != null) {
+            stats.recordCacheHit(PerformanceStats.Cache.CHUNK_LOOKUP);
+            return precomputed;
         }
+        stats.recordCacheMiss(PerformanceStats.Cache.CHUNK_LOOKUP);
 
-        String worldName = location.getWorld().getName();
+        // 查找表尚未构建完成（区块刚加载或索引刚重建），只检查所在区块的候选区域
+        stats.recordIndexLookup(index.getCandidates(blockX, blockZ).length + index.getOversizedAreas().length);
+        return index.findMatch(blockX, blockY, blockZ);
+    }
 
-        // 使用世界索引缓存来减少查找范围
-        List<ProtectedArea> worldAreas = worldAreaCache.computeIfAbsent(worldName,
-                k -> protectedAreas.values().stream()
-                        .filter(area -> area.getWorldName().equals(worldName))
-                        .collect(ArrayList::new, ArrayList::add, ArrayList::addAll));
+    /**
+     * 查询与方块范围相交且设置了指定标志的区域，直接走索引，不经过区块查找表
+     */
+    public AreaBounds[] getAreasInBox(String worldName, int minX, int minY, int minZ,
+                                      int maxX, int maxY, int maxZ, ProtectionFlag flag) {
+        return indexSnapshot.getIndex(worldName).query(minX, minY, minZ, maxX, maxY, maxZ, flag);
+    }
 
-        // 在指定世界的区域中查找
-        for (ProtectedArea area : worldAreas) {
-            if (area.contains(location)) {
-                // 缓存结果，但要控制缓存大小
-                if (locationCache.size() < MAX_LOCATION_CACHE_SIZE) {
-                    locationCache.put(locationKey, area);
+    /**
+     * 当前发布的索引版本，监听器据此判断自己的缓存是否过时
+     */
+    public long getIndexGeneration() {
+        return indexSnapshot.getGeneration();
+    }
+
+    /**
+     * 请求在异步线程重建指定世界的索引，连续的多次请求只会让最新的一次真正构建
+     */
+    private void requestIndexRebuild(String worldName) {
+        dirtyIndexWorlds.add(worldName);
+        scheduleIndexRebuild();
+    }
+
+    /**
+     * 请求重建所有世界的索引，用于整体替换数据
+     */
+    private void requestFullIndexRebuild() {
+        dirtyIndexWorlds.addAll(loadedWorlds);
+        dirtyIndexWorlds.addAll(indexSnapshot.getWorldNames());
+        scheduleIndexRebuild();
+    }
+
+    private void scheduleIndexRebuild() {
+        long generation = requestedIndexGeneration.incrementAndGet();
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                // 已有更新的请求排队时跳过，由最新的请求负责构建（被标记的世界会保留到那时）
+                if (generation == requestedIndexGeneration.get()) {
+                    rebuildIndex();
                 }
-                return area;
             }
+        }.runTaskAsynchronously(plugin);
+    }
+
+    /**
+     * 重建被标记世界的索引并发布新快照，构建过程串行执行，每次都基于最新发布的快照
+     */
+    private void rebuildIndex() {
+        synchronized (indexBuildLock) {
+            // 先取出标记再读取区域，之后发生的修改会重新标记并触发下一次构建
+            Set<String> worlds = new HashSet<>();
+            for (Iterator<String> iterator = dirtyIndexWorlds.iterator(); iterator.hasNext(); ) {
+                worlds.add(iterator.next());
+                iterator.remove();
+            }
+            if (worlds.isEmpty()) {
+                return;
+            }
+
+            Map<String, List<ProtectedArea>> byWorld = new HashMap<>();
+            for (ProtectedArea area : protectedAreas.values()) {
+                String worldName = area.getWorldName();
+                if (worlds.contains(worldName) && loadedWorlds.contains(worldName)) {
+                    byWorld.computeIfAbsent(worldName, k -> new ArrayList<>()).add(area);
+                }
+            }
+
+            Map<String, AreaIndex> worldIndexes = new HashMap<>();
+            for (String worldName : worlds) {
+                List<ProtectedArea> areas = byWorld.get(worldName);
+                worldIndexes.put(worldName, areas != null ? AreaIndex.build(areas) : null);
+            }
+            indexSnapshot = indexSnapshot.withWorlds(worldIndexes);
+            chunkLookups.onIndexPublished(worlds);
         }
+    }
+
+    /**
+     * 世界加载后为其构建索引，在此之前该世界的区域不占用索引内存
+     */
+    public void onWorldLoad(String worldName) {
+        if (loadedWorlds.add(worldName)) {
+            requestIndexRebuild(worldName);
+        }
+    }
+
+    /**
+     * 区块加载后在异步线程为其预先计算查找表
+     */
+    public void onChunkLoad(String worldName, int chunkX, int chunkZ) {
+        chunkLookups.onChunkLoad(worldName, chunkX, chunkZ);
+    }
+
+    public void onChunkUnload(String worldName, int chunkX, int chunkZ) {
+        chunkLookups.onChunkUnload(worldName, chunkX, chunkZ);
+    }
 
-        return null;
+    /**
+     * 世界卸载后释放其索引和区块查找表，区域数据本身保留
+     */
+    public void onWorldUnload(String worldName) {
+        if (loadedWorlds.remove(worldName)) {
+            chunkLookups.onWorldUnload(worldName);
+            requestIndexRebuild(worldName);
+        }
     }
 
     public ProtectedWorld getProtectedWorld(String worldName) {
+        if (!loaded) {
+            return getFailClosedPlaceholder(worldName);
+        }
         return protectedWorlds.get(worldName);
     }
 
     /**
-     * 异步保存数据，避阻塞主线程
+     * 数据加载完成前，fail-closed 世界返回开启全部保护的占位世界，其余世界返回 null
      */
-    public void saveDataAsync() {
-        if (!dataChanged) {
-            return;
+    private ProtectedWorld getFailClosedPlaceholder(String worldName) {
+        if (!failClosedWorlds.contains(worldName) && !failClosedWorlds.contains("*")) {
+            return null;
         }
+        return failClosedPlaceholders.computeIfAbsent(worldName, name -> {
+            ProtectedWorld placeholder = new ProtectedWorld(name);
+            placeholder.setFlags(-1);
+            return placeholder;
+        });
+    }
 
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                saveData();
-                dataChanged = false;
-            }
-        }.runTaskAsynchronously(plugin);
+    /**
+     * 世界中是否可能禁止指定操作（有区域或世界保护开启了该标志），返回 false 时无需查找区域
+     * <p>
+     * 只需一次哈希查找和一次位与，适合放在事件处理的最前面。
+     */
+    public boolean mayProtect(String worldName, ProtectionFlag flag) {
+        if (!loaded) {
+            return getFailClosedPlaceholder(worldName) != null;
+        }
+        WorldFlagSummary summary = flagSummaries.get(worldName);
+        return summary != null && flag.isSet(summary.getFlags());
+    }
+
+    private WorldFlagSummary getFlagSummary(String worldName) {
+        return flagSummaries.computeIfAbsent(worldName, name -> new WorldFlagSummary());
     }
 
     /**
-     * 标记数据已更改
+     * 按全部区域和世界保护重新统计标志汇总，用于加载和整体替换数据
      */
-    public void markDataChanged() {
-        this.dataChanged = true;
+    private void rebuildFlagSummaries() {
+        Map<String, WorldFlagSummary> summaries = new HashMap<>();
+        for (ProtectedArea area : protectedAreas.values()) {
+            summaries.computeIfAbsent(area.getWorldName(), name -> new WorldFlagSummary()).addArea(area.getFlags());
+        }
+        for (ProtectedWorld world : protectedWorlds.values()) {
+            summaries.computeIfAbsent(world.getWorldName(), name -> new WorldFlagSummary()).setWorldFlags(world.getFlags());
+        }
+        flagSummaries.keySet().retainAll(summaries.keySet());
+        flagSummaries.putAll(summaries);
     }
 
     /**
-     * 启动自动保存任务
+     * 判断世界保护是否为加载期间的占位世界，用于显示加载提示
      */
-    private void startAutoSaveTask() {
-        autoSaveTask = new BukkitRunnable() {
-            @Override
-            public void run() {
-                if (dataChanged) {
-                    saveDataAsync();
-                }
-            }
-        };
-        // 每30秒检查一次是否需要保存
-        autoSaveTask.runTaskTimerAsynchronously(plugin, 600L, 600L);
+    public boolean isLoadingPlaceholder(ProtectedWorld world) {
+        return world != null && !loaded && failClosedPlaceholders.get(world.getWorldName()) == world;
     }
 
     /**
-     * 启动缓存清理任务
+     * 数据是否已加载完成，之前修改数据的命令不可用
      */
-    private void startCacheCleanupTask() {
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                cleanupCache();
-            }
-        }.runTaskTimerAsynchronously(plugin, CACHE_CLEANUP_INTERVAL / 1000 * 20, CACHE_CLEANUP_INTERVAL / 1000 * 20);
+    public boolean isLoaded() {
+        return loaded;
     }
 
     /**
-     * 清理缓存
+     * 当前世界保护数据的版本，创建或移除世界保护时变化
      */
-    private void cleanupCache() {
-        // 清理位置缓存
-        if (locationCache.size() > MAX_LOCATION_CACHE_SIZE * 0.8) {
-            locationCache.clear();
+    public long getWorldGeneration() {
+        return worldGeneration;
+    }
+
+    /**
+     * 异步保存：在主线程抓取快照，由日志线程写出数据文件并清空日志，避阻塞主线程
+     * <p>
+     * 快照在加入队列时抓取，因此日志线程中排在压缩之前的记录都已包含在快照里。
+     * 上一次请求尚未开始写出时只替换待写的快照，不重复排队。
+     */
+    public void saveDataAsync() {
+        if (!loaded) {
+            return; // 数据尚未加载完成或加载失败，保存会覆盖数据文件
+        }
+        long generation = dataGeneration.get();
+        if (generation == savedGeneration) {
+            return;
         }
 
-        // 重建世界区域缓存
-        worldAreaCache.clear();
+        DataSnapshot snapshot = DataSnapshot.capture(protectedAreas.values(), protectedWorlds.values(), generation);
+        if (pendingSave.getAndSet(snapshot) == null) {
+            journal.compact(this::writePendingSave);
+        }
+    }
+
+    private boolean writePendingSave() {
+        DataSnapshot snapshot = pendingSave.getAndSet(null);
+        if (snapshot == null) {
+            return false;
+        }
+        if (!writeSnapshot(snapshot)) {
+            return false; // 保留日志，下次保存时重试
+        }
+        if (snapshot.getGeneration() > savedGeneration) {
+            savedGeneration = snapshot.getGeneration(); // 只在日志线程写入
+        }
+        return true;
     }
 
     /**
-     * 将位置转换为字符串键
+     * 标记数据已更改
      */
-    private String locationToString(Location location) {
-        return String.format("%s:%d:%d:%d",
-                location.getWorld().getName(),
-                location.getBlockX(),
-                location.getBlockY(),
-                location.getBlockZ());
+    public void markDataChanged() {
+        dataGeneration.incrementAndGet();
+    }
+
+    /**
+     * 启动自动保存任务，按 save-interval 定期将日志压缩进 data.yml
+     */
+    private void startAutoSaveTask() {
+        autoSaveTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                saveDataAsync();
+            }
+        };
+        long interval = Math.max(1, plugin.getConfig().getLong("save-interval", 10)) * 60 * 20;
+        autoSaveTask.runTaskTimer(plugin, interval, interval); // 快照需要在主线程抓取，写出仍在日志线程
     }
 
     /**
      * 添加区域时更新缓存
      */
     public void addArea(ProtectedArea area) {
-        protectedAreas.put(area.getName(), area);
-        worldAreaCache.remove(area.getWorldName()); // 清除相关世界的缓存
+        ProtectedArea previous = protectedAreas.put(area.getName(), area);
+        if (previous != null) {
+            getFlagSummary(previous.getWorldName()).removeArea(previous.getFlags());
+        }
+        getFlagSummary(area.getWorldName()).addArea(area.getFlags());
+        journalArea(area);
+        requestIndexRebuild(area.getWorldName());
+        markDataChanged();
+    }
+
+    /**
+     * 区域边界变化时更新缓存
+     */
+    public void refreshArea(ProtectedArea area) {
+        requestIndexRebuild(area.getWorldName()); // 边界变化后索引分桶失效，新快照发布时缓存随之失效
         markDataChanged();
     }
 
@@ -348,8 +859,9 @@ public class DataManager {
     public void removeArea(String areaName) {
         ProtectedArea removed = protectedAreas.remove(areaName);
         if (removed != null) {
-            worldAreaCache.remove(removed.getWorldName()); // 清除相关世界的缓存
-            locationCache.clear(); // 清除位置缓存
+            journal.append(DataJournal.REMOVE_AREA, areaName);
+            getFlagSummary(removed.getWorldName()).removeArea(removed.getFlags());
+            requestIndexRebuild(removed.getWorldName());
             markDataChanged();
         }
     }
@@ -359,6 +871,9 @@ public class DataManager {
      */
     public void addWorld(ProtectedWorld world) {
         protectedWorlds.put(world.getWorldName(), world);
+        journalWorld(world);
+        getFlagSummary(world.getWorldName()).setWorldFlags(world.getFlags());
+        worldGeneration++;
         markDataChanged();
     }
 
@@ -367,6 +882,9 @@ public class DataManager {
      */
     public void removeWorld(String worldName) {
         if (protectedWorlds.remove(worldName) != null) {
+            journal.append(DataJournal.REMOVE_WORLD, worldName);
+            getFlagSummary(worldName).setWorldFlags(0);
+            worldGeneration++;
             markDataChanged();
         }
     }
@@ -379,10 +897,9 @@ public class DataManager {
             autoSaveTask.cancel();
         }
 
-        // 最后保存一次数据
-        if (dataChanged) {
-            saveData();
-        }
+        // 有未保存的修改时最后保存一次，并等待日志线程写完
+        saveDataAsync();
+        journal.close();
     }
 
     /**
@@ -398,4 +915,11 @@ public class DataManager {
     public Collection<ProtectedWorld> getAllWorlds() {
         return Collections.unmodifiableCollection(protectedWorlds.values());
     }
+
+    /**
+     * 后台加载的结果，发布前不与任何线程共享
+     */
+    private record LoadResult(Map<String, ProtectedArea> areas, Map<String, ProtectedWorld> worlds,
+                              Map<String, AreaIndex> worldIndexes, boolean changed) {
+    }
 }
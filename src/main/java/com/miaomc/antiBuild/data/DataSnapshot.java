@@ -0,0 +1,66 @@
+package com.miaomc.antiBuild.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 某一时刻全部保护数据的不可变副本
+ * <p>
+ * 在主线程抓取，只复制字段不做 I/O，之后可以交给任意线程序列化，
+ * 不会读到主线程正在修改的区域对象。
+ */
+public final class DataSnapshot {
+    private final List<AreaRecord> areas;
+    private final List<WorldRecord> worlds;
+    private final long generation;
+
+    private DataSnapshot(List<AreaRecord> areas, List<WorldRecord> worlds, long generation) {
+        this.areas = areas;
+        this.worlds = worlds;
+        this.generation = generation;
+    }
+
+    /**
+     * 复制当前数据，应在修改数据的线程（主线程）调用
+     *
+     * @param generation 抓取时的数据版本，写出成功后据此判断是否还有未保存的修改
+     */
+    public static DataSnapshot capture(Collection<ProtectedArea> areas, Collection<ProtectedWorld> worlds, long generation) {
+        List<AreaRecord> areaRecords = new ArrayList<>(areas.size());
+        for (ProtectedArea area : areas) {
+            areaRecords.add(new AreaRecord(area.getName(), area.getWorldName(),
+                    area.getPointA(), area.getPointB(), area.getShape(), area.getFlags(), area.getPriority()));
+        }
+
+        List<WorldRecord> worldRecords = new ArrayList<>(worlds.size());
+        for (ProtectedWorld world : worlds) {
+            worldRecords.add(new WorldRecord(world.getWorldName(), world.getFlags()));
+        }
+
+        return new DataSnapshot(Collections.unmodifiableList(areaRecords), Collections.unmodifiableList(worldRecords), generation);
+    }
+
+    public List<AreaRecord> getAreas() {
+        return areas;
+    }
+
+    public List<WorldRecord> getWorlds() {
+        return worlds;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * 区域数据，未设置的点为 null，形状为 null 表示点A和点B围成的长方体（形状本身不可变，可直接共享）
+     */
+    public record AreaRecord(String name, String worldName, BlockPoint pointA, BlockPoint pointB,
+                             AreaShape shape, int flags, int priority) {
+    }
+
+    public record WorldRecord(String name, int flags) {
+    }
+}
@@ -0,0 +1,140 @@
+package com.miaomc.antiBuild.data;
+
+import java.util.Arrays;
+
+/**
+ * 多个长方体的并集，用一个区域代替多个重叠的区域
+ */
+public final class MultiCuboidShape implements AreaShape {
+    public static final String TYPE = "multi";
+
+    private final CuboidShape[] parts;
+    private final int minX, minY, minZ, maxX, maxY, maxZ;
+
+    public MultiCuboidShape(CuboidShape... parts) {
+        if (parts.length == 0) {
+            throw new IllegalArgumentException("至少需要一个长方体");
+        }
+        this.parts = parts.clone();
+
+        int lowX = Integer.MAX_VALUE, lowY = Integer.MAX_VALUE, lowZ = Integer.MAX_VALUE;
+        int highX = Integer.MIN_VALUE, highY = Integer.MIN_VALUE, highZ = Integer.MIN_VALUE;
+        for (CuboidShape part : parts) {
+            lowX = Math.min(lowX, part.getMinX());
+            lowY = Math.min(lowY, part.getMinY());
+            lowZ = Math.min(lowZ, part.getMinZ());
+            highX = Math.max(highX, part.getMaxX());
+            highY = Math.max(highY, part.getMaxY());
+            highZ = Math.max(highZ, part.getMaxZ());
+        }
+        this.minX = lowX;
+        this.minY = lowY;
+        this.minZ = lowZ;
+        this.maxX = highX;
+        this.maxY = highY;
+        this.maxZ = highZ;
+    }
+
+    static MultiCuboidShape decode(int[] data) {
+        if (data.length == 0 || data.length % 6 != 0) {
+            throw new IllegalArgumentException("长方体组参数数量错误");
+        }
+        CuboidShape[] parts = new CuboidShape[data.length / 6];
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = CuboidShape.decode(Arrays.copyOfRange(data, i * 6, i * 6 + 6));
+        }
+        return new MultiCuboidShape(parts);
+    }
+
+    /**
+     * 返回追加了一个长方体的新形状
+     */
+    public MultiCuboidShape with(CuboidShape part) {
+        CuboidShape[] combined = Arrays.copyOf(parts, parts.length + 1);
+        combined[parts.length] = part;
+        return new MultiCuboidShape(combined);
+    }
+
+    public int getPartCount() {
+        return parts.length;
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public int getMinX() {
+        return minX;
+    }
+
+    @Override
+    public int getMinY() {
+        return minY;
+    }
+
+    @Override
+    public int getMinZ() {
+        return minZ;
+    }
+
+    @Override
+    public int getMaxX() {
+        return maxX;
+    }
+
+    @Override
+    public int getMaxY() {
+        return maxY;
+    }
+
+    @Override
+    public int getMaxZ() {
+        return maxZ;
+    }
+
+    @Override
+    public boolean contains(int x, int y, int z) {
+        for (CuboidShape part : parts) {
+            if (part.contains(x, y, z)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 只判断是否有单个长方体覆盖整个范围，由多个长方体拼接覆盖时返回 false
+     */
+    @Override
+    public boolean containsBox(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        for (CuboidShape part : parts) {
+            if (part.containsBox(minX, minY, minZ, maxX, maxY, maxZ)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 各长方体体积之和，重叠部分会重复计算
+     */
+    @Override
+    public long getVolume() {
+        long volume = 0;
+        for (CuboidShape part : parts) {
+            volume += part.getVolume();
+        }
+        return volume;
+    }
+
+    @Override
+    public int[] encode() {
+        int[] data = new int[parts.length * 6];
+        for (int i = 0; i < parts.length; i++) {
+            System.arraycopy(parts[i].encode(), 0, data, i * 6, 6);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,143 @@
+package com.miaomc.antiBuild.data;
+
+/**
+ * 竖直拉伸的多边形，顶点为方块的 x/z 坐标，按方块中心做奇偶规则判断
+ */
+public final class PolygonShape implements AreaShape {
+    public static final String TYPE = "polygon";
+
+    private final int[] xs;
+    private final int[] zs;
+    private final int minY, maxY;
+    private final int minX, minZ, maxX, maxZ;
+
+    public PolygonShape(int minY, int maxY, int[] xs, int[] zs) {
+        if (xs.length != zs.length || xs.length < 3) {
+            throw new IllegalArgumentException("多边形至少需要 3 个顶点");
+        }
+        this.xs = xs.clone();
+        this.zs = zs.clone();
+        this.minY = Math.min(minY, maxY);
+        this.maxY = Math.max(minY, maxY);
+
+        int lowX = Integer.MAX_VALUE, lowZ = Integer.MAX_VALUE;
+        int highX = Integer.MIN_VALUE, highZ = Integer.MIN_VALUE;
+        for (int i = 0; i < xs.length; i++) {
+            lowX = Math.min(lowX, xs[i]);
+            highX = Math.max(highX, xs[i]);
+            lowZ = Math.min(lowZ, zs[i]);
+            highZ = Math.max(highZ, zs[i]);
+        }
+        this.minX = lowX;
+        this.minZ = lowZ;
+        this.maxX = highX;
+        this.maxZ = highZ;
+    }
+
+    static PolygonShape decode(int[] data) {
+        if (data.length < 2 || data.length % 2 != 0) {
+            throw new IllegalArgumentException("多边形参数数量错误");
+        }
+        int count = (data.length - 2) / 2;
+        int[] xs = new int[count];
+        int[] zs = new int[count];
+        for (int i = 0; i < count; i++) {
+            xs[i] = data[2 + i * 2];
+            zs[i] = data[3 + i * 2];
+        }
+        return new PolygonShape(data[0], data[1], xs, zs);
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public int getMinX() {
+        return minX;
+    }
+
+    @Override
+    public int getMinY() {
+        return minY;
+    }
+
+    @Override
+    public int getMinZ() {
+        return minZ;
+    }
+
+    @Override
+    public int getMaxX() {
+        return maxX;
+    }
+
+    @Override
+    public int getMaxY() {
+        return maxY;
+    }
+
+    @Override
+    public int getMaxZ() {
+        return maxZ;
+    }
+
+    @Override
+    public boolean contains(int x, int y, int z) {
+        if (y < minY || y > maxY) {
+            return false;
+        }
+        // 顶点取方块中心，测试点也取方块中心，坐标同时偏移 0.5 后可以直接用整数顶点比较
+        boolean inside = false;
+        for (int i = 0, j = xs.length - 1; i < xs.length; j = i++) {
+            int zi = zs[i];
+            int zj = zs[j];
+            if ((zi > z) != (zj > z)) {
+                double crossX = xs[i] + (double) (xs[j] - xs[i]) * (z - zi) / (zj - zi);
+                if (x < crossX) {
+                    inside = !inside;
+                }
+            }
+        }
+        return inside || isOnEdge(x, z);
+    }
+
+    /**
+     * 顶点连线经过的方块也算在多边形内，与玩家沿边界选点的直觉一致
+     */
+    private boolean isOnEdge(int x, int z) {
+        for (int i = 0, j = xs.length - 1; i < xs.length; j = i++) {
+            long cross = (long) (xs[j] - xs[i]) * (z - zs[i]) - (long) (zs[j] - zs[i]) * (x - xs[i]);
+            if (cross == 0 && x >= Math.min(xs[i], xs[j]) && x <= Math.max(xs[i], xs[j])
+                    && z >= Math.min(zs[i], zs[j]) && z <= Math.max(zs[i], zs[j])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 按顶点围成的面积估算，不逐个统计方块
+     */
+    @Override
+    public long getVolume() {
+        long doubledArea = 0;
+        for (int i = 0, j = xs.length - 1; i < xs.length; j = i++) {
+            doubledArea += (long) xs[j] * zs[i] - (long) xs[i] * zs[j];
+        }
+        return Math.abs(doubledArea) / 2 * (maxY - minY + 1);
+    }
+
+    @Override
+    public int[] encode() {
+        int[] data = new int[2 + xs.length * 2];
+        data[0] = minY;
+        data[1] = maxY;
+        for (int i = 0; i < xs.length; i++) {
+            data[2 + i * 2] = xs[i];
+            data[3 + i * 2] = zs[i];
+        }
+        return data;
+    }
+}
@@ -5,18 +5,14 @@ import org.bukkit.Location;
 public class ProtectedArea {
     private final String name;
     private final String worldName;
-    private Location pointA;
-    private Location pointB;
-    private boolean antiPlace = false;
-    private boolean antiBreak = false;
-    private boolean antiInteraction = false;
-    private boolean antiUse = false;
-    private boolean antiExplosion = false; // 新增防爆炸设置
-    private boolean antiFishing = false; // 新增防钓鱼设置
-    private boolean antiAnimalInteract = false; // 新增防动物交互设置
-    private boolean antiThrow = false; // 新增防投掷设置
-    private boolean antiShoot = false; // 新增防射击设置
-    private boolean antiTrample = false; // 新增防踩踏农作物设置
+    // 角点只保存方块坐标和世界名，世界加载后才会进入空间索引
+    private volatile BlockPoint pointA;
+    private volatile BlockPoint pointB;
+    // 自定义形状（圆柱、多边形、长方体组），为 null 时使用点A和点B围成的长方体
+    private volatile AreaShape shape;
+    private volatile AreaBounds bounds; // 设置了形状或点A和点B都设置后才有值
+    private volatile int flags = 0; // 保护标志位掩码，见 ProtectionFlag
+    private volatile int priority = 0; // 区域重叠时数值大的优先，见 AreaMatch
 
     public ProtectedArea(String name, String worldName) {
         this.name = name;
@@ -32,163 +28,129 @@ public class ProtectedArea {
         return worldName;
     }
 
-    public Location getPointA() {
+    public BlockPoint getPointA() {
         return pointA;
     }
 
-    public void setPointA(Location pointA) {
+    public void setPointA(BlockPoint pointA) {
         this.pointA = pointA;
-        boundsCached = false; // 重置缓存标志
-    }
-
-    public Location getPointB() {
-        return pointB;
-    }
-
-    public void setPointB(Location pointB) {
-        this.pointB = pointB;
-        boundsCached = false; // 重置缓存标志
-    }
-
-    public boolean isAntiPlace() {
-        return antiPlace;
+        updateBounds();
     }
 
-    public void setAntiPlace(boolean antiPlace) {
-        this.antiPlace = antiPlace;
-    }
-
-    public boolean isAntiBreak() {
-        return antiBreak;
-    }
-
-    public void setAntiBreak(boolean antiBreak) {
-        this.antiBreak = antiBreak;
-    }
-
-    public boolean isAntiInteraction() {
-        return antiInteraction;
-    }
-
-    public void setAntiInteraction(boolean antiInteraction) {
-        this.antiInteraction = antiInteraction;
-    }
-
-    public boolean isAntiUse() {
-        return antiUse;
-    }
-
-    public void setAntiUse(boolean antiUse) {
-        this.antiUse = antiUse;
+    public void setPointA(Location pointA) {
+        setPointA(BlockPoint.of(pointA));
     }
 
-    public boolean isAntiExplosion() {
-        return antiExplosion;
+    public BlockPoint getPointB() {
+        return pointB;
     }
 
-    public void setAntiExplosion(boolean antiExplosion) {
-        this.antiExplosion = antiExplosion;
+    public void setPointB(BlockPoint pointB) {
+        this.pointB = pointB;
+        updateBounds();
     }
 
-    public boolean isAntiFishing() {
-        return antiFishing;
+    public void setPointB(Location pointB) {
+        setPointB(BlockPoint.of(pointB));
     }
 
-    public void setAntiFishing(boolean antiFishing) {
-        this.antiFishing = antiFishing;
+    /**
+     * 自定义形状，使用点A和点B围成的长方体时返回 null
+     */
+    public AreaShape getShape() {
+        return shape;
     }
 
-    public boolean isAntiAnimalInteract() {
-        return antiAnimalInteract;
+    /**
+     * 设置自定义形状，传入 null 恢复为点A和点B围成的长方体；点A和点B保留，可用于继续选取
+     */
+    public void setShape(AreaShape shape) {
+        this.shape = shape;
+        updateBounds();
     }
 
-    public void setAntiAnimalInteract(boolean antiAnimalInteract) {
-        this.antiAnimalInteract = antiAnimalInteract;
+    public int getFlags() {
+        return flags;
     }
 
-    public boolean isAntiThrow() {
-        return antiThrow;
+    public void setFlags(int flags) {
+        this.flags = flags;
     }
 
-    public void setAntiThrow(boolean antiThrow) {
-        this.antiThrow = antiThrow;
+    public boolean hasFlag(ProtectionFlag flag) {
+        return flag.isSet(flags);
     }
 
-    public boolean isAntiShoot() {
-        return antiShoot;
+    public void setFlag(ProtectionFlag flag, boolean enabled) {
+        flags = enabled ? flags | flag.getMask() : flags & ~flag.getMask();
     }
 
-    public void setAntiShoot(boolean antiShoot) {
-        this.antiShoot = antiShoot;
+    public int getPriority() {
+        return priority;
     }
 
-    public boolean isAntiTrample() {
-        return antiTrample;
+    public void setPriority(int priority) {
+        this.priority = priority;
+        updateBounds(); // 优先级决定索引中的排列顺序，同样替换快照
     }
 
-    public void setAntiTrample(boolean antiTrample) {
-        this.antiTrample = antiTrample;
+    public boolean isComplete() {
+        return bounds != null;
     }
 
-    public boolean isComplete() {
-        return pointA != null && pointB != null;
+    /**
+     * 获取当前边界快照，区域未设置完整时返回 null
+     */
+    public AreaBounds getBounds() {
+        return bounds;
     }
 
     /**
      * 优化的包含检查方法，使用早期返回和缓存边界值
      */
     public boolean contains(Location location) {
-        if (!isComplete() || location.getWorld() == null ||
+        AreaBounds current = bounds;
+        if (current == null || location.getWorld() == null ||
                 !location.getWorld().getName().equals(worldName)) {
             return false;
         }
 
-        return location.getX() >= minX && location.getX() <= maxX &&
-                location.getY() >= minY && location.getY() <= maxY &&
-                location.getZ() >= minZ && location.getZ() <= maxZ;
+        return current.contains(location.getBlockX(), location.getBlockY(), location.getBlockZ());
     }
 
-    // 性能优化：缓存边界值
-    private double minX, maxX, minY, maxY, minZ, maxZ;
-    private boolean boundsCached = false;
-
     /**
-     * 缓存边界值以提高contains()方法性能
+     * 点、形状或优先级变化时整体替换边界快照，读取方要么看到旧边界要么看到新边界
+     * <p>
+     * 快照不变即区域在索引中的结果不变，索引重建后据此保留未受影响区块的查找表。
      */
-    private void cacheBounds() {
-        if (isComplete()) {
-            minX = Math.min(pointA.getX(), pointB.getX());
-            maxX = Math.max(pointA.getX(), pointB.getX());
-            minY = Math.min(pointA.getY(), pointB.getY());
-            maxY = Math.max(pointA.getY(), pointB.getY());
-            minZ = Math.min(pointA.getZ(), pointB.getZ());
-            maxZ = Math.max(pointA.getZ(), pointB.getZ());
-            boundsCached = true;
+    private void updateBounds() {
+        AreaShape custom = shape;
+        if (custom != null) {
+            bounds = new AreaBounds(this, custom);
+            return;
         }
+        BlockPoint a = pointA;
+        BlockPoint b = pointB;
+        bounds = a != null && b != null ? new AreaBounds(this, CuboidShape.of(a, b)) : null;
     }
 
     /**
      * 获取区域体积（用于优化排序）
      */
-    public double getVolume() {
-        if (!isComplete()) return 0;
-        if (!boundsCached) cacheBounds();
-        return (maxX - minX) * (maxY - minY) * (maxZ - minZ);
+    public long getVolume() {
+        AreaBounds current = bounds;
+        return current != null ? current.getVolume() : 0;
     }
 
     /**
      * 快速距离检查（用于优化查找）
      */
     public double getDistanceSquared(Location location) {
-        if (!isComplete() || !boundsCached) {
-            cacheBounds();
+        AreaBounds current = bounds;
+        if (current == null) {
+            return Double.MAX_VALUE;
         }
-
-        double dx = Math.max(0, Math.max(minX - location.getX(), location.getX() - maxX));
-        double dy = Math.max(0, Math.max(minY - location.getY(), location.getY() - maxY));
-        double dz = Math.max(0, Math.max(minZ - location.getZ(), location.getZ() - maxZ));
-
-        return dx * dx + dy * dy + dz * dz;
+        return current.getDistanceSquared(location.getX(), location.getY(), location.getZ());
     }
 
     @Override
@@ -196,6 +158,7 @@ public class ProtectedArea {
         return "ProtectedArea{" +
                 "name='" + name + '\'' +
                 ", worldName='" + worldName + '\'' +
+                ", priority=" + priority +
                 ", complete=" + isComplete() +
                 ", volume=" + getVolume() +
                 '}';
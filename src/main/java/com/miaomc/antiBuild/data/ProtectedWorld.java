@@ -2,16 +2,7 @@ package com.miaomc.antiBuild.data;
 
 public class ProtectedWorld {
     private final String worldName;
-    private boolean antiPlace = false;
-    private boolean antiBreak = false;
-    private boolean antiInteraction = false;
-    private boolean antiUse = false;
-    private boolean antiExplosion = false;
-    private boolean antiFishing = false; // 新增防钓鱼设置
-    private boolean antiAnimalInteract = false; // 新增防动物交互设置
-    private boolean antiThrow = false; // 新增防投掷设置
-    private boolean antiShoot = false; // 新增防射击设置
-    private boolean antiTrample = false; // 新增防踩踏农作物设置
+    private volatile int flags = 0; // 保护标志位掩码，见 ProtectionFlag
 
     public ProtectedWorld(String worldName) {
         this.worldName = worldName;
@@ -26,100 +17,28 @@ public class ProtectedWorld {
         return worldName;
     }
 
-    public boolean isAntiPlace() {
-        return antiPlace;
+    public int getFlags() {
+        return flags;
     }
 
-    public void setAntiPlace(boolean antiPlace) {
-        this.antiPlace = antiPlace;
+    public void setFlags(int flags) {
+        this.flags = flags;
     }
 
-    public boolean isAntiBreak() {
-        return antiBreak;
+    public boolean hasFlag(ProtectionFlag flag) {
+        return flag.isSet(flags);
     }
 
-    public void setAntiBreak(boolean antiBreak) {
-        this.antiBreak = antiBreak;
-    }
-
-    public boolean isAntiInteraction() {
-        return antiInteraction;
-    }
-
-    public void setAntiInteraction(boolean antiInteraction) {
-        this.antiInteraction = antiInteraction;
-    }
-
-    public boolean isAntiUse() {
-        return antiUse;
-    }
-
-    public void setAntiUse(boolean antiUse) {
-        this.antiUse = antiUse;
-    }
-
-    public boolean isAntiExplosion() {
-        return antiExplosion;
-    }
-
-    public void setAntiExplosion(boolean antiExplosion) {
-        this.antiExplosion = antiExplosion;
-    }
-
-    public boolean isAntiFishing() {
-        return antiFishing;
-    }
-
-    public void setAntiFishing(boolean antiFishing) {
-        this.antiFishing = antiFishing;
-    }
-
-    public boolean isAntiAnimalInteract() {
-        return antiAnimalInteract;
-    }
-
-    public void setAntiAnimalInteract(boolean antiAnimalInteract) {
-        this.antiAnimalInteract = antiAnimalInteract;
-    }
-
-    public boolean isAntiThrow() {
-        return antiThrow;
-    }
-
-    public void setAntiThrow(boolean antiThrow) {
-        this.antiThrow = antiThrow;
-    }
-
-    public boolean isAntiShoot() {
-        return antiShoot;
-    }
-
-    public void setAntiShoot(boolean antiShoot) {
-        this.antiShoot = antiShoot;
-    }
-
-    public boolean isAntiTrample() {
-        return antiTrample;
-    }
-
-    public void setAntiTrample(boolean antiTrample) {
-        this.antiTrample = antiTrample;
+    public void setFlag(ProtectionFlag flag, boolean enabled) {
+        flags = enabled ? flags | flag.getMask() : flags & ~flag.getMask();
     }
 
     @Override
     public String toString() {
-        return "ProtectedWorld{" +
-                "worldName='" + worldName + '\'' +
-                ", antiPlace=" + antiPlace +
-                ", antiBreak=" + antiBreak +
-                ", antiInteraction=" + antiInteraction +
-                ", antiUse=" + antiUse +
-                ", antiExplosion=" + antiExplosion +
-                ", antiFishing=" + antiFishing +
-                ", antiAnimalInteract=" + antiAnimalInteract +
-                ", antiThrow=" + antiThrow +
-                ", antiShoot=" + antiShoot +
-                ", antiTrample=" + antiTrample +
-                '}';
+        StringBuilder builder = new StringBuilder("ProtectedWorld{worldName='").append(worldName).append('\'');
+        for (ProtectionFlag flag : ProtectionFlag.values()) {
+            builder.append(", ").append(flag.getConfigKey()).append('=').append(flag.isSet(flags));
+        }
+        return builder.append('}').toString();
     }
 }
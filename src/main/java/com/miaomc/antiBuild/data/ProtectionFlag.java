@@ -0,0 +1,96 @@
+package com.miaomc.antiBuild.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 保护设置项，每一项对应保护标志位掩码中的一位
+ * <p>
+ * 新增保护项只需在此添加常量，数据读写、命令和补全都会自动识别。
+ */
+public enum ProtectionFlag {
+    PLACE("antiPlace", "place"),
+    BREAK("antiBreak", "break"),
+    INTERACTION("antiInteraction", "interaction"),
+    USE("antiUse", "use"),
+    EXPLOSION("antiExplosion", "explosion"),
+    FISHING("antiFishing", "fishing"),
+    ANIMAL_INTERACT("antiAnimalInteract", "animal-interact"),
+    THROW("antiThrow", "throw"),
+    SHOOT("antiShoot", "shoot"),
+    TRAMPLE("antiTrample", "trample"),
+    FLOW("antiFlow", "flow"),
+    PISTON("antiPiston", "piston"),
+    FIRE("antiFire", "fire");
+
+    private static final ProtectionFlag[] VALUES = values();
+    private static final List<String> COMMAND_NAMES;
+
+    static {
+        List<String> names = new ArrayList<>(VALUES.length);
+        for (ProtectionFlag flag : VALUES) {
+            names.add(flag.commandName);
+        }
+        COMMAND_NAMES = Collections.unmodifiableList(names);
+    }
+
+    private final int mask;
+    private final String configKey;
+    private final String commandName;
+
+    ProtectionFlag(String configKey, String commandName) {
+        this.mask = 1 << ordinal();
+        this.configKey = configKey;
+        this.commandName = commandName;
+    }
+
+    public int getMask() {
+        return mask;
+    }
+
+    /**
+     * data.yml 中的键名
+     */
+    public String getConfigKey() {
+        return configKey;
+    }
+
+    /**
+     * 命令中使用的名称，同时也是配置中提示消息的键名
+     */
+    public String getCommandName() {
+        return commandName;
+    }
+
+    public boolean isSet(int flags) {
+        return (flags & mask) != 0;
+    }
+
+    /**
+     * 根据数据文件中的键查找标志
+     *
+     * @return 对应的标志，不存在时返回 null
+     */
+    public static ProtectionFlag fromConfigKey(String configKey) {
+        for (ProtectionFlag flag : VALUES) {
+            if (flag.configKey.equals(configKey)) {
+                return flag;
+            }
+        }
+        return null;
+    }
+
+    public static ProtectionFlag fromCommandName(String commandName) {
+        for (ProtectionFlag flag : VALUES) {
+            if (flag.commandName.equals(commandName)) {
+                return flag;
+            }
+        }
+        return null;
+    }
+
+    public static List<String> getCommandNames() {
+        return COMMAND_NAMES;
+    }
+}
@@ -0,0 +1,58 @@
+package com.miaomc.antiBuild.data;
+
+/**
+ * 单个世界的保护标志汇总：世界中任一区域开启的标志与世界保护自身标志的并集
+ * <p>
+ * 按标志分别记录开启该标志的区域数，区域增删或修改标志时增量更新，无需遍历全部区域。
+ * 只在修改数据的线程写入，汇总结果通过 volatile 字段发布给读取方。
+ */
+final class WorldFlagSummary {
+    private final int[] areaCounts = new int[ProtectionFlag.values().length];
+    private int worldFlags;
+    private volatile int flags;
+
+    void addArea(int areaFlags) {
+        adjust(areaFlags, 1);
+    }
+
+    void removeArea(int areaFlags) {
+        adjust(areaFlags, -1);
+    }
+
+    /**
+     * 区域单个标志变化，调用方保证标志确实发生了变化
+     */
+    void setAreaFlag(ProtectionFlag flag, boolean enabled) {
+        adjust(flag.getMask(), enabled ? 1 : -1);
+    }
+
+    void setWorldFlags(int worldFlags) {
+        this.worldFlags = worldFlags;
+        publish();
+    }
+
+    int getFlags() {
+        return flags;
+    }
+
+    private void adjust(int areaFlags, int delta) {
+        ProtectionFlag[] values = ProtectionFlag.values();
+        for (int i = 0; i < values.length; i++) {
+            if (values[i].isSet(areaFlags)) {
+                areaCounts[i] += delta;
+            }
+        }
+        publish();
+    }
+
+    private void publish() {
+        int summary = worldFlags;
+        ProtectionFlag[] values = ProtectionFlag.values();
+        for (int i = 0; i < values.length; i++) {
+            if (areaCounts[i] > 0) {
+                summary |= values[i].getMask();
+            }
+        }
+        flags = summary;
+    }
+}
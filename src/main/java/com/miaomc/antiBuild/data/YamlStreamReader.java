@@ -0,0 +1,325 @@
+package com.miaomc.antiBuild.data;
+
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.events.*;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * 流式读取 data.yml 格式的数据
+ * <p>
+ * 直接消费 SnakeYAML 的解析事件，每读完一条区域记录就创建对应的 {@link ProtectedArea}，
+ * 不构建整棵配置树，也没有逐字段的字符串路径查找。未知的键会被跳过。
+ */
+final class YamlStreamReader {
+    private final Iterator<Event> events;
+    private final Logger logger;
+    private Event peeked;
+
+    private YamlStreamReader(Reader reader, Logger logger) {
+        this.events = new Yaml().parse(reader).iterator();
+        this.logger = logger;
+    }
+
+    /**
+     * 读取区域和世界保护并放入给定的集合
+     *
+     * @return 读取的区域数
+     */
+    static int read(Reader reader, Map<String, ProtectedArea> areas, Map<String, ProtectedWorld> worlds, Logger logger) throws IOException {
+        try {
+            return new YamlStreamReader(reader, logger).readDocument(areas, worlds);
+        } catch (RuntimeException e) {
+            // SnakeYAML 的语法错误以运行时异常抛出
+            throw new IOException("无法解析数据文件: " + e.getMessage(), e);
+        }
+    }
+
+    private int readDocument(Map<String, ProtectedArea> areas, Map<String, ProtectedWorld> worlds) {
+        // 跳过流和文档的开始事件，空文件没有根节点
+        while (!(peek() instanceof MappingStartEvent)) {
+            if (peek() instanceof StreamEndEvent) {
+                return 0;
+            }
+            next();
+        }
+        next();
+
+        int count = 0;
+        while (!(peek() instanceof MappingEndEvent)) {
+            String key = readScalar();
+            switch (key) {
+                case "areas" -> count += readAreas(areas);
+                case "worlds" -> readWorlds(worlds);
+                default -> skipNode();
+            }
+        }
+        return count;
+    }
+
+    private int readAreas(Map<String, ProtectedArea> areas) {
+        if (!(peek() instanceof MappingStartEvent)) {
+            skipNode(); // "areas:" 为空
+            return 0;
+        }
+        next();
+
+        int count = 0;
+        while (!(peek() instanceof MappingEndEvent)) {
+            String name = readScalar();
+            ProtectedArea area = readArea(name);
+            if (area != null) {
+                areas.put(name, area);
+                count++;
+            }
+        }
+        next();
+        return count;
+    }
+
+    private ProtectedArea readArea(String name) {
+        if (!(peek() instanceof MappingStartEvent)) {
+            skipNode();
+            logger.warning("区域 " + name + " 的数据格式错误，跳过加载");
+            return null;
+        }
+        next();
+
+        String worldName = null;
+        BlockPoint pointA = null;
+        BlockPoint pointB = null;
+        AreaShape shape = null;
+        int flags = 0;
+        int priority = 0;
+        while (!(peek() instanceof MappingEndEvent)) {
+            String key = readScalar();
+            switch (key) {
+                case "world" -> worldName = readScalar();
+                case "pointA" -> pointA = readPoint(name, key);
+                case "pointB" -> pointB = readPoint(name, key);
+                case "shape" -> shape = readShape(name);
+                case "priority" -> priority = readPriority(name);
+                default -> {
+                    ProtectionFlag flag = ProtectionFlag.fromConfigKey(key);
+                    if (flag != null && peek() instanceof ScalarEvent) {
+                        if (parseBoolean(readScalar())) {
+                            flags |= flag.getMask();
+                        }
+                    } else {
+                        skipNode();
+                    }
+                }
+            }
+        }
+        next();
+
+        if (worldName == null || worldName.isEmpty()) {
+            logger.warning("区域 " + name + " 的世界名称为空，跳过加载");
+            return null;
+        }
+
+        ProtectedArea area = new ProtectedArea(name, worldName);
+        if (pointA != null) {
+            area.setPointA(pointA);
+        }
+        if (pointB != null) {
+            area.setPointB(pointB);
+        }
+        area.setShape(shape);
+        area.setFlags(flags);
+        area.setPriority(priority);
+        return area;
+    }
+
+    private int readPriority(String areaName) {
+        if (!(peek() instanceof ScalarEvent)) {
+            skipNode();
+            logger.warning("区域 " + areaName + " 的优先级格式错误，按 0 加载");
+            return 0;
+        }
+        String value = readScalar();
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            logger.warning("区域 " + areaName + " 的优先级 " + value + " 无效，按 0 加载");
+            return 0;
+        }
+    }
+
+    /**
+     * 读取区域的一个点，坐标无效时跳过该点
+     */
+    private BlockPoint readPoint(String areaName, String pointName) {
+        if (!(peek() instanceof MappingStartEvent)) {
+            skipNode();
+            return null;
+        }
+        next();
+
+        double x = 0, y = 0, z = 0;
+        boolean valid = true;
+        while (!(peek() instanceof MappingEndEvent)) {
+            String key = readScalar();
+            if (!(peek() instanceof ScalarEvent)) {
+                skipNode();
+                continue;
+            }
+            String value = readScalar();
+            double coordinate;
+            try {
+                coordinate = Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                valid = false;
+                continue;
+            }
+            switch (key) {
+                case "x" -> x = coordinate;
+                case "y" -> y = coordinate;
+                case "z" -> z = coordinate;
+                default -> {
+                }
+            }
+        }
+        next();
+
+        if (!valid) {
+            logger.warning("区域 " + areaName + " 的 " + pointName + " 坐标无效，跳过该点");
+            return null;
+        }
+        return BlockPoint.of(x, y, z);
+    }
+
+    /**
+     * 读取形状：type 为类型，data 为整数参数列表
+     */
+    private AreaShape readShape(String areaName) {
+        if (!(peek() instanceof MappingStartEvent)) {
+            skipNode();
+            return null;
+        }
+        next();
+
+        String type = null;
+        List<Integer> data = new ArrayList<>();
+        String invalidData = null;
+        while (!(peek() instanceof MappingEndEvent)) {
+            String key = readScalar();
+            if (key.equals("type") && peek() instanceof ScalarEvent) {
+                type = readScalar();
+            } else if (key.equals("data") && peek() instanceof SequenceStartEvent) {
+                next();
+                while (!(peek() instanceof SequenceEndEvent)) {
+                    if (!(peek() instanceof ScalarEvent)) {
+                        skipNode();
+                        invalidData = "非数值";
+                        continue;
+                    }
+                    String value = readScalar();
+                    try {
+                        data.add(Integer.parseInt(value));
+                    } catch (NumberFormatException e) {
+                        invalidData = value;
+                    }
+                }
+                next();
+            } else {
+                skipNode();
+            }
+        }
+        next();
+
+        if (type == null) {
+            logger.warning("区域 " + areaName + " 的形状缺少类型，按长方体加载");
+            return null;
+        }
+        if (invalidData != null) {
+            logger.warning("区域 " + areaName + " 的形状参数 " + invalidData + " 无效，按长方体加载");
+            return null;
+        }
+        try {
+            return AreaShape.decode(type, data.stream().mapToInt(Integer::intValue).toArray());
+        } catch (IllegalArgumentException e) {
+            logger.warning("区域 " + areaName + " 的形状无效，按长方体加载: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void readWorlds(Map<String, ProtectedWorld> worlds) {
+        if (!(peek() instanceof MappingStartEvent)) {
+            skipNode();
+            return;
+        }
+        next();
+
+        while (!(peek() instanceof MappingEndEvent)) {
+            String worldName = readScalar();
+            ProtectedWorld world = new ProtectedWorld(worldName);
+            if (peek() instanceof MappingStartEvent) {
+                next();
+                while (!(peek() instanceof MappingEndEvent)) {
+                    ProtectionFlag flag = ProtectionFlag.fromConfigKey(readScalar());
+                    if (flag != null && peek() instanceof ScalarEvent) {
+                        world.setFlag(flag, parseBoolean(readScalar()));
+                    } else {
+                        skipNode();
+                    }
+                }
+                next();
+            } else {
+                skipNode();
+            }
+            worlds.put(worldName, world);
+        }
+        next();
+    }
+
+    /**
+     * 跳过当前节点（标量、映射或列表）
+     */
+    private void skipNode() {
+        Event event = next();
+        if (!(event instanceof CollectionStartEvent)) {
+            return;
+        }
+        int depth = 1;
+        while (depth > 0) {
+            event = next();
+            if (event instanceof CollectionStartEvent) {
+                depth++;
+            } else if (event instanceof CollectionEndEvent) {
+                depth--;
+            }
+        }
+    }
+
+    private String readScalar() {
+        Event event = next();
+        if (!(event instanceof ScalarEvent scalar)) {
+            throw new IllegalStateException("此处应为标量: " + event);
+        }
+        return scalar.getValue();
+    }
+
+    private static boolean parseBoolean(String value) {
+        return value.equalsIgnoreCase("true") || value.equalsIgnoreCase("yes") || value.equalsIgnoreCase("on");
+    }
+
+    private Event peek() {
+        if (peeked == null) {
+            peeked = events.next();
+        }
+        return peeked;
+    }
+
+    private Event next() {
+        Event event = peek();
+        peeked = null;
+        return event;
+    }
+}
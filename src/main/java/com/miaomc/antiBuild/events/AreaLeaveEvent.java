@@ -0,0 +1,33 @@
+package com.miaomc.antiBuild.events;
+
+import com.miaomc.antiBuild.data.ProtectedArea;
+import org.bukkit.entity.Player;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.player.PlayerEvent;
+
+/**
+ * 玩家离开保护区域时触发
+ */
+public class AreaLeaveEvent extends PlayerEvent {
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final ProtectedArea area;
+
+    public AreaLeaveEvent(Player player, ProtectedArea area) {
+        super(player);
+        this.area = area;
+    }
+
+    public ProtectedArea getArea() {
+        return area;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
@@ -1,52 +1,66 @@
 package com.miaomc.antiBuild.listeners;
 
-import com.miaomc.antiBuild.AntiBuild;
+import com.miaomc.antiBuild.data.AreaBounds;
+import com.miaomc.antiBuild.data.AreaMatch;
 import com.miaomc.antiBuild.data.DataManager;
-import com.miaomc.antiBuild.data.ProtectedArea;
 import com.miaomc.antiBuild.data.ProtectedWorld;
+import com.miaomc.antiBuild.data.ProtectionFlag;
+import com.miaomc.antiBuild.player.MessageType;
+import com.miaomc.antiBuild.player.PlayerSession;
+import com.miaomc.antiBuild.player.PlayerTracker;
+import com.miaomc.antiBuild.stats.PerformanceStats;
 import org.bukkit.ChatColor;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
 import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.Action;
 import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockFromToEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
 import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.block.BlockSpreadEvent;
 import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.entity.EntityInteractEvent;
 import org.bukkit.event.entity.EntityShootBowEvent;
 import org.bukkit.event.entity.ProjectileLaunchEvent;
 import org.bukkit.event.player.PlayerFishEvent;
 import org.bukkit.event.player.PlayerInteractEntityEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
-import org.bukkit.event.player.PlayerQuitEvent;
-import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.plugin.Plugin;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class ProtectionListener implements Listener {
-    private final AntiBuild plugin;
+    private final Plugin plugin;
     private final DataManager dataManager;
-    private final Map<UUID, Map<String, Long>> messageCooldowns;
+    private final PlayerTracker playerTracker;
+    private final PerformanceStats stats;
     private final long cooldownTime;
 
-    // 缓存的配置消息，避免重复读取配置文件
-    private final Map<String, String> cachedMessages;
+    // 缓存的配置消息，按 MessageType 序号索引，避免重复读取配置文件
+    private String[] cachedMessages;
 
     // 性能优化：使用静态缓存集合
     private static final Set<Material> INTERACTIVE_MATERIALS;
     private static final Set<String> INTERACTIVE_SUFFIXES;
-    private static final Map<Material, Boolean> MATERIAL_CACHE = new ConcurrentHashMap<>();
-    private static final int MAX_MATERIAL_CACHE_SIZE = 500; // 限制缓存大小
+    // 按 Material 序号索引的可交互方块表，启用和重载配置时计算
+    private boolean[] interactiveMaterials;
+    // 按 Material 序号索引的可被踩坏的方块（耕地、作物、海龟蛋）
+    private static final boolean[] TRAMPLE_MATERIALS;
 
     // 数据缓存，减少数据库查询
     private final Map<String, ProtectedWorld> worldCache = new ConcurrentHashMap<>();
-    private final Map<String, ProtectedArea> areaCache = new ConcurrentHashMap<>();
-    private static final int MAX_CACHE_SIZE = 1000;
-    private static final long CACHE_EXPIRE_TIME = 30000; // 30秒缓存过期
+    private long worldCacheGeneration = 0; // 世界缓存对应的世界保护版本
 
     static {
         // 预定义具有GUI的容器类和功能性方块
@@ -81,42 +95,40 @@ public class ProtectionListener implements Listener {
                 "_DOOR", "_TRAPDOOR", "_FENCE_GATE", "_BUTTON",
                 "_PRESSURE_PLATE", "_SHULKER_BOX", "_BED", "_CAULDRON"
         );
+
+        TRAMPLE_MATERIALS = new boolean[Material.values().length];
+        for (Material material : EnumSet.of(
+                Material.FARMLAND, Material.TURTLE_EGG, Material.WHEAT, Material.CARROTS,
+                Material.POTATOES, Material.BEETROOTS, Material.MELON_STEM, Material.PUMPKIN_STEM,
+                Material.ATTACHED_MELON_STEM, Material.ATTACHED_PUMPKIN_STEM, Material.NETHER_WART)) {
+            TRAMPLE_MATERIALS[material.ordinal()] = true;
+        }
     }
 
-    public ProtectionListener(AntiBuild plugin, DataManager dataManager) {
+    public ProtectionListener(Plugin plugin, PerformanceStats stats, DataManager dataManager, PlayerTracker playerTracker) {
         this.plugin = plugin;
         this.dataManager = dataManager;
-        this.messageCooldowns = new ConcurrentHashMap<>();
+        this.playerTracker = playerTracker;
+        this.stats = stats;
         this.cooldownTime = plugin.getConfig().getLong("message-cooldown", 5) * 1000;
-        this.cachedMessages = new ConcurrentHashMap<>();
 
         // 预加载和缓存配置消息
         loadConfigMessages();
-
-        // 启动定期清理任务
-        startCleanupTask();
+        loadInteractiveMaterials();
     }
 
     /**
      * 预加载配置消息到缓存
      */
     private void loadConfigMessages() {
-        cachedMessages.put("place", translateColors(plugin.getConfig().getString("messages.protection-messages.place")));
-        cachedMessages.put("break", translateColors(plugin.getConfig().getString("messages.protection-messages.break")));
-        cachedMessages.put("interaction", translateColors(plugin.getConfig().getString("messages.protection-messages.interaction")));
-        cachedMessages.put("use", translateColors(plugin.getConfig().getString("messages.protection-messages.use")));
-        cachedMessages.put("world-place", translateColors(plugin.getConfig().getString("messages.world-protection-messages.place")));
-        cachedMessages.put("world-break", translateColors(plugin.getConfig().getString("messages.world-protection-messages.break")));
-        cachedMessages.put("world-interaction", translateColors(plugin.getConfig().getString("messages.world-protection-messages.interaction")));
-        cachedMessages.put("world-use", translateColors(plugin.getConfig().getString("messages.world-protection-messages.use")));
-        cachedMessages.put("fishing", translateColors(plugin.getConfig().getString("messages.protection-messages.fishing")));
-        cachedMessages.put("world-fishing", translateColors(plugin.getConfig().getString("messages.world-protection-messages.fishing")));
-        cachedMessages.put("animal-interact", translateColors(plugin.getConfig().getString("messages.protection-messages.animal-interact")));
-        cachedMessages.put("world-animal-interact", translateColors(plugin.getConfig().getString("messages.world-protection-messages.animal-interact")));
-        cachedMessages.put("throw", translateColors(plugin.getConfig().getString("messages.protection-messages.throw")));
-        cachedMessages.put("world-throw", translateColors(plugin.getConfig().getString("messages.world-protection-messages.throw")));
-        cachedMessages.put("shoot", translateColors(plugin.getConfig().getString("messages.protection-messages.shoot")));
-        cachedMessages.put("world-shoot", translateColors(plugin.getConfig().getString("messages.world-protection-messages.shoot")));
+        String[] messages = new String[MessageType.values().length];
+        for (MessageType type : MessageType.values()) {
+            messages[type.ordinal()] = translateColors(plugin.getConfig().getString(type.getConfigPath()));
+        }
+        if (messages[MessageType.DATA_LOADING.ordinal()].isEmpty()) {
+            messages[MessageType.DATA_LOADING.ordinal()] = translateColors("&c保护数据正在加载，请稍候！");
+        }
+        cachedMessages = messages;
     }
 
     /**
@@ -126,176 +138,397 @@ public class ProtectionListener implements Listener {
         return message != null ? ChatColor.translateAlternateColorCodes('&', message) : "";
     }
 
-    /**
-     * 启动定期清理任务
-     */
-    private void startCleanupTask() {
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                cleanupCaches();
-            }
-        }.runTaskTimerAsynchronously(plugin, 6000L, 6000L); // 每5分钟执行一次
-    }
+    @EventHandler(priority = EventPriority.NORMAL)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        long start = stats.startTimer();
+        try {
+            Player player = event.getPlayer();
 
-    /**
-     * 清理过期缓存
-     */
-    private void cleanupCaches() {
-        long currentTime = System.currentTimeMillis();
+            // 世界中没有开启该保护时直接放行，无需查找区域
+            if (!dataManager.mayProtect(event.getBlock().getWorld().getName(), ProtectionFlag.PLACE)) {
+                return;
+            }
 
-        // 清理消息冷却缓存中的离线玩家数据
-        messageCooldowns.entrySet().removeIf(entry -> {
-            UUID playerId = entry.getKey();
-            return plugin.getServer().getPlayer(playerId) == null;
-        });
+            // 检查是否有绕过权限
+            if (playerTracker.canBypass(player, ProtectionFlag.PLACE)) {
+                return;
+            }
 
-        // 限制材质缓存大小
-        if (MATERIAL_CACHE.size() > MAX_MATERIAL_CACHE_SIZE) {
-            MATERIAL_CACHE.clear(); // 简单粗暴的清理方式
+            denyIfProtected(event, player, event.getBlock(), ProtectionFlag.PLACE);
+        } finally {
+            stats.recordHandler(PerformanceStats.Handler.BLOCK_PLACE, start);
         }
-
-        // 清理区域和世界缓存（如果有时间戳的话）
-        // 这里需要根据实际的缓存实现来调整
     }
 
-    // 玩家离线时清理相关数据
-    @EventHandler
-    public void onPlayerQuit(PlayerQuitEvent event) {
-        UUID playerId = event.getPlayer().getUniqueId();
-        messageCooldowns.remove(playerId);
+    @EventHandler(priority = EventPriority.NORMAL)
+    public void onBlockBreak(BlockBreakEvent event) {
+        long start = stats.startTimer();
+        try {
+            Player player = event.getPlayer();
+
+            // 世界中没有开启该保护时直接放行，无需查找区域
+            if (!dataManager.mayProtect(event.getBlock().getWorld().getName(), ProtectionFlag.BREAK)) {
+                return;
+            }
+
+            // 检查是否有绕过权限
+            if (playerTracker.canBypass(player, ProtectionFlag.BREAK)) {
+                return;
+            }
+
+            denyIfProtected(event, player, event.getBlock(), ProtectionFlag.BREAK);
+        } finally {
+            stats.recordHandler(PerformanceStats.Handler.BLOCK_BREAK, start);
+        }
     }
 
     @EventHandler(priority = EventPriority.NORMAL)
-    public void onBlockPlace(BlockPlaceEvent event) {
-        Player player = event.getPlayer();
+    public void onPlayerInteract(PlayerInteractEvent event) {
+        long start = stats.startTimer();
+        try {
+            Player player = event.getPlayer();
+
+            // 踩踏耕地等：站在压力板上也会触发，先按材质和世界过滤
+            if (event.getAction() == Action.PHYSICAL) {
+                Block block = event.getClickedBlock();
+                if (block != null && isTrampleTarget(block)
+                        && !playerTracker.canBypass(player, ProtectionFlag.TRAMPLE)) {
+                    denyIfProtected(event, player, block, ProtectionFlag.TRAMPLE);
+                }
+                return;
+            }
 
-        // 检查是否有绕过权限
-        if (player.hasPermission("miaomc.antibuild.bypass")) {
-            return;
-        }
+            // 性能优化：早期返回检查，最高频的检查放在前面
+            if (event.getClickedBlock() == null ||
+                    event.getAction() != Action.RIGHT_CLICK_BLOCK) {
+                return;
+            }
 
-        Location location = event.getBlock().getLocation();
+            Material material = event.getClickedBlock().getType();
+            boolean isInteraction = isInteractiveBlockOptimized(material);
+            boolean isUse = !isInteraction && event.getItem() != null;
 
-        // 检查区域保护（使用缓存优化）
-        ProtectedArea area = getCachedProtectedArea(location);
-        if (area != null && area.isAntiPlace()) {
-            event.setCancelled(true);
-            sendCooldownMessage(player, "place");
-            return;
-        }
+            // 如果既不是交互也不是使用物品，直接返回
+            if (!isInteraction && !isUse) {
+                return;
+            }
 
-        // 检查世界保护（使用缓存优化）
-        ProtectedWorld world = getCachedProtectedWorld(location.getWorld().getName());
-        if (world != null && world.isAntiPlace()) {
-            event.setCancelled(true);
-            sendCooldownMessage(player, "world-place");
+            ProtectionFlag flag = isInteraction ? ProtectionFlag.INTERACTION : ProtectionFlag.USE;
+            Block block = event.getClickedBlock();
+            if (!dataManager.mayProtect(block.getWorld().getName(), flag)
+                    || playerTracker.canBypass(player, flag)) {
+                return;
+            }
+            denyIfProtected(event, player, block, flag);
+        } finally {
+            stats.recordHandler(PerformanceStats.Handler.PLAYER_INTERACT, start);
         }
     }
 
+    /**
+     * 阻止生物踩坏耕地和作物
+     */
     @EventHandler(priority = EventPriority.NORMAL)
-    public void onBlockBreak(BlockBreakEvent event) {
-        Player player = event.getPlayer();
+    public void onEntityInteract(EntityInteractEvent event) {
+        long start = stats.startTimer();
+        try {
+            Block block = event.getBlock();
+            if (!isTrampleTarget(block)) {
+                return;
+            }
 
-        // 检查是否有绕过权限
-        if (player.hasPermission("miaomc.antibuild.bypass")) {
-            return;
+            String worldName = block.getWorld().getName();
+            AreaMatch match = dataManager.getAreaMatchAt(worldName, block.getX(), block.getY(), block.getZ());
+            ProtectedWorld world = getCachedProtectedWorld(worldName);
+            if (match.hasFlag(ProtectionFlag.TRAMPLE)
+                    || (world != null && world.hasFlag(ProtectionFlag.TRAMPLE))) {
+                event.setCancelled(true);
+            }
+        } finally {
+            stats.recordHandler(PerformanceStats.Handler.ENTITY_INTERACT, start);
         }
+    }
 
-        Location location = event.getBlock().getLocation();
+    /**
+     * 方块可被踩坏且所在世界开启了防踩踏，两项检查都不分配对象
+     */
+    private boolean isTrampleTarget(Block block) {
+        return TRAMPLE_MATERIALS[block.getType().ordinal()]
+                && dataManager.mayProtect(block.getWorld().getName(), ProtectionFlag.TRAMPLE);
+    }
 
-        // 检查区域保护（使用缓存优化）
-        ProtectedArea area = getCachedProtectedArea(location);
-        if (area != null && area.isAntiBreak()) {
-            event.setCancelled(true);
-            sendCooldownMessage(player, "break");
-            return;
+    @EventHandler(priority = EventPriority.NORMAL)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        long start = stats.startTimer();
+        try {
+            Location explosionLocation = event.getLocation();
+            if (explosionLocation.getWorld() == null) {
+                return; // 修复空指针警告
+            }
+            protectFromExplosion(event, explosionLocation.getWorld().getName(), event.blockList());
+        } finally {
+            stats.recordHandler(PerformanceStats.Handler.ENTITY_EXPLODE, start);
         }
+    }
 
-        // 检查世界保护（使用缓存优化）
-        ProtectedWorld world = getCachedProtectedWorld(location.getWorld().getName());
-        if (world != null && world.isAntiBreak()) {
-            event.setCancelled(true);
-            sendCooldownMessage(player, "world-break");
+    /**
+     * 床、重生锚等方块爆炸，与实体爆炸同样受防爆保护
+     */
+    @EventHandler(priority = EventPriority.NORMAL)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        long start = stats.startTimer();
+        try {
+            protectFromExplosion(event, event.getBlock().getWorld().getName(), event.blockList());
+        } finally {
+            stats.recordHandler(PerformanceStats.Handler.BLOCK_EXPLODE, start);
         }
     }
 
-    @EventHandler(priority = EventPriority.NORMAL)
-    public void onPlayerInteract(PlayerInteractEvent event) {
-        Player player = event.getPlayer();
+    /**
+     * 世界开启防爆时取消整个爆炸，否则只从破坏列表中移除受保护区域内的方块
+     */
+    private void protectFromExplosion(Cancellable event, String worldName, List<Block> blocks) {
+        if (!dataManager.mayProtect(worldName, ProtectionFlag.EXPLOSION)) {
+            return;
+        }
 
-        // 性能优化：早期返回检查，最高频的检查放在前面
-        if (event.getClickedBlock() == null ||
-                event.getAction() != Action.RIGHT_CLICK_BLOCK ||
-                player.hasPermission("miaomc.antibuild.bypass")) {
+        // 检查世界保护（使用缓存优化）
+        ProtectedWorld protectedWorld = getCachedProtectedWorld(worldName);
+        if (protectedWorld != null && protectedWorld.hasFlag(ProtectionFlag.EXPLOSION)) {
+            event.setCancelled(true);
             return;
         }
 
-        Material material = event.getClickedBlock().getType();
-        boolean isInteraction = isInteractiveBlockOptimized(material);
-        boolean isUse = !isInteraction && event.getItem() != null;
+        if (blocks.isEmpty()) {
+            return;
+        }
 
-        // 如果既不是交互也不是使用物品，直接返回
-        if (!isInteraction && !isUse) {
+        // 先计算爆炸影响范围的包围盒，只取出与之相交且开启防爆的区域
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+        for (Block block : blocks) {
+            int x = block.getX();
+            int y = block.getY();
+            int z = block.getZ();
+            if (x < minX) minX = x;
+            if (x > maxX) maxX = x;
+            if (y < minY) minY = y;
+            if (y > maxY) maxY = y;
+            if (z < minZ) minZ = z;
+            if (z > maxZ) maxZ = z;
+        }
+
+        AreaBounds[] candidates = dataManager.getAreasInBox(worldName, minX, minY, minZ, maxX, maxY, maxZ,
+                ProtectionFlag.EXPLOSION);
+        if (candidates.length == 0) {
             return;
         }
 
-        Location location = event.getClickedBlock().getLocation();
+        // 用整数坐标对少量候选区域批量过滤受保护的方块
+        blocks.removeIf(block -> isInsideAny(candidates, block.getX(), block.getY(), block.getZ()));
+    }
 
-        // 检查区域保护（使用缓存优化）
-        ProtectedArea area = getCachedProtectedArea(location);
-        if (area != null) {
-            if (isInteraction && area.isAntiInteraction()) {
-                event.setCancelled(true);
-                sendCooldownMessage(player, "interaction");
+    /**
+     * 阻止液体从区域外流入受保护的区域，区域内部的流动（喷泉、护城河、农场）不受影响
+     */
+    @EventHandler(priority = EventPriority.NORMAL)
+    public void onBlockFromTo(BlockFromToEvent event) {
+        long start = stats.startTimer();
+        try {
+            Block from = event.getBlock();
+            Block to = event.getToBlock();
+            String worldName = to.getWorld().getName();
+            if (!dataManager.mayProtect(worldName, ProtectionFlag.FLOW)) {
                 return;
-            } else if (isUse && area.isAntiUse()) {
+            }
+            if (isLoadingPlaceholder(worldName)) {
                 event.setCancelled(true);
-                sendCooldownMessage(player, "use");
                 return;
             }
+
+            AreaMatch target = dataManager.getAreaMatchAt(worldName, to.getX(), to.getY(), to.getZ());
+            if (!target.hasFlag(ProtectionFlag.FLOW)) {
+                return;
+            }
+            AreaMatch source = dataManager.getAreaMatchAt(worldName, from.getX(), from.getY(), from.getZ());
+            if (!source.hasSameAreas(target)) {
+                event.setCancelled(true);
+            }
+        } finally {
+            stats.recordHandler(PerformanceStats.Handler.BLOCK_FROM_TO, start);
         }
+    }
 
-        // 检查世界保护（使用缓存优化）
-        ProtectedWorld world = getCachedProtectedWorld(location.getWorld().getName());
-        if (world != null) {
-            if (isInteraction && world.isAntiInteraction()) {
+    /**
+     * 阻止火焰蔓延到受保护的位置，蘑菇、藤蔓等其他蔓延不受影响
+     */
+    @EventHandler(priority = EventPriority.NORMAL)
+    public void onBlockSpread(BlockSpreadEvent event) {
+        long start = stats.startTimer();
+        try {
+            Material type = event.getNewState().getType();
+            if ((type == Material.FIRE || type == Material.SOUL_FIRE)
+                    && isProtectedBlock(event.getBlock(), ProtectionFlag.FIRE)) {
                 event.setCancelled(true);
-                sendCooldownMessage(player, "world-interaction");
-            } else if (isUse && world.isAntiUse()) {
+            }
+        } finally {
+            stats.recordHandler(PerformanceStats.Handler.BLOCK_SPREAD, start);
+        }
+    }
+
+    /**
+     * 阻止受保护的方块被火烧毁
+     */
+    @EventHandler(priority = EventPriority.NORMAL)
+    public void onBlockBurn(BlockBurnEvent event) {
+        long start = stats.startTimer();
+        try {
+            if (isProtectedBlock(event.getBlock(), ProtectionFlag.FIRE)) {
                 event.setCancelled(true);
-                sendCooldownMessage(player, "world-use");
             }
+        } finally {
+            stats.recordHandler(PerformanceStats.Handler.BLOCK_BURN, start);
         }
     }
 
     @EventHandler(priority = EventPriority.NORMAL)
-    public void onEntityExplode(EntityExplodeEvent event) {
-        Location explosionLocation = event.getLocation();
-        if (explosionLocation.getWorld() == null) {
-            return; // 修复空指针警告
+    public void onPistonExtend(BlockPistonExtendEvent event) {
+        long start = stats.startTimer();
+        try {
+            // 活塞臂伸出的位置同样算作受影响的方块
+            if (isPistonBlocked(event.getBlock(), event.getDirection(), event.getBlocks(), true)) {
+                event.setCancelled(true);
+            }
+        } finally {
+            stats.recordHandler(PerformanceStats.Handler.PISTON, start);
         }
+    }
 
-        String worldName = explosionLocation.getWorld().getName();
+    @EventHandler(priority = EventPriority.NORMAL)
+    public void onPistonRetract(BlockPistonRetractEvent event) {
+        long start = stats.startTimer();
+        try {
+            if (isPistonBlocked(event.getBlock(), event.getDirection(), event.getBlocks(), false)) {
+                event.setCancelled(true);
+            }
+        } finally {
+            stats.recordHandler(PerformanceStats.Handler.PISTON, start);
+        }
+    }
+
+    /**
+     * 判断活塞是否跨越保护边界：活塞臂或移动的方块（原位置和目标位置）位于开启防活塞的区域内，
+     * 且该位置的区域组合与活塞本身所在的不同。区域内部的红石机械不受影响。
+     * <p>
+     * 与爆炸相同，先按全部位置的包围盒取出候选区域，没有候选时不逐个检查方块。
+     * 世界保护不会被跨越（活塞无法跨世界推动方块），因此只看区域。
+     *
+     * @param direction 方块移动的方向，收回时与活塞朝向相反
+     */
+    private boolean isPistonBlocked(Block piston, BlockFace direction, List<Block> blocks, boolean includeHead) {
+        if (blocks.isEmpty() && !includeHead) {
+            return false;
+        }
+
+        String worldName = piston.getWorld().getName();
+        if (!dataManager.mayProtect(worldName, ProtectionFlag.PISTON)) {
+            return false;
+        }
+
+        if (isLoadingPlaceholder(worldName)) {
+            return true;
+        }
+
+        int dx = direction.getModX();
+        int dy = direction.getModY();
+        int dz = direction.getModZ();
+        // 活塞臂位置为活塞沿方向的下一格
+        int headX = piston.getX() + dx;
+        int headY = piston.getY() + dy;
+        int headZ = piston.getZ() + dz;
+
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+        if (includeHead) {
+            minX = maxX = headX;
+            minY = maxY = headY;
+            minZ = maxZ = headZ;
+        }
+        for (Block block : blocks) {
+            // 原位置与目标位置只差一格，包围盒按两端一起扩展
+            int x = block.getX();
+            int y = block.getY();
+            int z = block.getZ();
+            minX = Math.min(minX, Math.min(x, x + dx));
+            minY = Math.min(minY, Math.min(y, y + dy));
+            minZ = Math.min(minZ, Math.min(z, z + dz));
+            maxX = Math.max(maxX, Math.max(x, x + dx));
+            maxY = Math.max(maxY, Math.max(y, y + dy));
+            maxZ = Math.max(maxZ, Math.max(z, z + dz));
+        }
+
+        AreaBounds[] candidates = dataManager.getAreasInBox(worldName, minX, minY, minZ, maxX, maxY, maxZ,
+                ProtectionFlag.PISTON);
+        if (candidates.length == 0) {
+            return false;
+        }
+
+        AreaMatch pistonAreas = dataManager.getAreaMatchAt(worldName, piston.getX(), piston.getY(), piston.getZ());
+        if (includeHead && crossesInto(candidates, pistonAreas, worldName, headX, headY, headZ)) {
+            return true;
+        }
+        for (Block block : blocks) {
+            int x = block.getX();
+            int y = block.getY();
+            int z = block.getZ();
+            if (crossesInto(candidates, pistonAreas, worldName, x, y, z)
+                    || crossesInto(candidates, pistonAreas, worldName, x + dx, y + dy, z + dz)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 位置受防活塞保护且与活塞不在同一组区域内，只对候选区域内的位置查找区域
+     */
+    private boolean crossesInto(AreaBounds[] candidates, AreaMatch pistonAreas, String worldName, int x, int y, int z) {
+        if (!isInsideAny(candidates, x, y, z)) {
+            return false;
+        }
+        return !dataManager.getAreaMatchAt(worldName, x, y, z).hasSameAreas(pistonAreas);
+    }
+
+    /**
+     * 数据加载完成前 fail-closed 世界的占位保护，此时无法判断区域边界，按受保护处理
+     */
+    private boolean isLoadingPlaceholder(String worldName) {
+        return dataManager.isLoadingPlaceholder(getCachedProtectedWorld(worldName));
+    }
+
+    /**
+     * 高频环境事件的检查：先用世界标志汇总排除，再按整数坐标查找区域，不创建 Location
+     */
+    private boolean isProtectedBlock(Block block, ProtectionFlag flag) {
+        String worldName = block.getWorld().getName();
+        if (!dataManager.mayProtect(worldName, flag)) {
+            return false;
+        }
 
-        // 检查世界保护（使用缓存优化）
         ProtectedWorld protectedWorld = getCachedProtectedWorld(worldName);
-        if (protectedWorld != null && protectedWorld.isAntiExplosion()) {
-            event.setCancelled(true);
-            return;
+        if (protectedWorld != null && protectedWorld.hasFlag(flag)) {
+            return true;
         }
+        return dataManager.getAreaMatchAt(worldName, block.getX(), block.getY(), block.getZ()).hasFlag(flag);
+    }
 
-        // 批量检查区域保护 - 优化爆炸事件处理
-        List<Block> protectedBlocks = new ArrayList<>();
-        for (Block block : event.blockList()) {
-            ProtectedArea area = getCachedProtectedArea(block.getLocation());
-            if (area != null && area.isAntiExplosion()) {
-                protectedBlocks.add(block);
+    private static boolean isInsideAny(AreaBounds[] candidates, int x, int y, int z) {
+        for (AreaBounds bounds : candidates) {
+            if (bounds.contains(x, y, z)) {
+                return true;
             }
         }
-
-        // 批量移除受保护的方块
-        event.blockList().removeAll(protectedBlocks);
+        return false;
     }
 
     /**
@@ -303,28 +536,24 @@ public class ProtectionListener implements Listener {
      */
     @EventHandler(priority = EventPriority.NORMAL)
     public void onPlayerFish(PlayerFishEvent event) {
-        Player player = event.getPlayer();
-
-        // 检查是否有绕过权限
-        if (player.hasPermission("miaomc.antibuild.bypass")) {
-            return;
-        }
+        long start = stats.startTimer();
+        try {
+            Player player = event.getPlayer();
 
-        Location location = player.getLocation();
+            if (!dataManager.mayProtect(player.getWorld().getName(), ProtectionFlag.FISHING)) {
+                return;
+            }
 
-        // 检查区域保护
-        ProtectedArea area = getCachedProtectedArea(location);
-        if (area != null && area.isAntiFishing()) {
-            event.setCancelled(true);
-            sendCooldownMessage(player, "fishing");
-            return;
-        }
+            // 检查是否有绕过权限
+            if (playerTracker.canBypass(player, ProtectionFlag.FISHING)) {
+                return;
+            }
 
-        // 检查世界保护
-        ProtectedWorld world = getCachedProtectedWorld(location.getWorld().getName());
-        if (world != null && world.isAntiFishing()) {
-            event.setCancelled(true);
-            sendCooldownMessage(player, "world-fishing");
+            // 玩家所在区域由跟踪器在移动时维护，这里直接读取
+            PlayerSession session = playerTracker.getFreshSession(player);
+            deny(event, player, session.getCurrentMatch(), session.getCurrentWorld(), ProtectionFlag.FISHING);
+        } finally {
+            stats.recordHandler(PerformanceStats.Handler.PLAYER_FISH, start);
         }
     }
 
@@ -333,28 +562,22 @@ public class ProtectionListener implements Listener {
      */
     @EventHandler(priority = EventPriority.NORMAL)
     public void onPlayerInteractEntity(PlayerInteractEntityEvent event) {
-        Player player = event.getPlayer();
-
-        // 检查是否有绕过权限
-        if (player.hasPermission("miaomc.antibuild.bypass")) {
-            return;
-        }
+        long start = stats.startTimer();
+        try {
+            Player player = event.getPlayer();
 
-        Location location = event.getRightClicked().getLocation();
+            if (!dataManager.mayProtect(event.getRightClicked().getWorld().getName(), ProtectionFlag.ANIMAL_INTERACT)) {
+                return;
+            }
 
-        // 检查区域保护
-        ProtectedArea area = getCachedProtectedArea(location);
-        if (area != null && area.isAntiAnimalInteract()) {
-            event.setCancelled(true);
-            sendCooldownMessage(player, "animal-interact");
-            return;
-        }
+            // 检查是否有绕过权限
+            if (playerTracker.canBypass(player, ProtectionFlag.ANIMAL_INTERACT)) {
+                return;
+            }
 
-        // 检查世界保护
-        ProtectedWorld world = getCachedProtectedWorld(location.getWorld().getName());
-        if (world != null && world.isAntiAnimalInteract()) {
-            event.setCancelled(true);
-            sendCooldownMessage(player, "world-animal-interact");
+            denyIfProtected(event, player, event.getRightClicked().getLocation(), ProtectionFlag.ANIMAL_INTERACT);
+        } finally {
+            stats.recordHandler(PerformanceStats.Handler.PLAYER_INTERACT_ENTITY, start);
         }
     }
 
@@ -363,32 +586,28 @@ public class ProtectionListener implements Listener {
      */
     @EventHandler(priority = EventPriority.NORMAL)
     public void onProjectileLaunch(ProjectileLaunchEvent event) {
-        if (!(event.getEntity().getShooter() instanceof Player)) {
-            return;
-        }
+        long start = stats.startTimer();
+        try {
+            if (!(event.getEntity().getShooter() instanceof Player)) {
+                return;
+            }
 
-        Player player = (Player) event.getEntity().getShooter();
+            Player player = (Player) event.getEntity().getShooter();
 
-        // 检查是否有绕过权限
-        if (player.hasPermission("miaomc.antibuild.bypass")) {
-            return;
-        }
-
-        Location location = player.getLocation();
+            if (!dataManager.mayProtect(player.getWorld().getName(), ProtectionFlag.THROW)) {
+                return;
+            }
 
-        // 检查区域保护
-        ProtectedArea area = getCachedProtectedArea(location);
-        if (area != null && area.isAntiThrow()) {
-            event.setCancelled(true);
-            sendCooldownMessage(player, "throw");
-            return;
-        }
+            // 检查是否有绕过权限
+            if (playerTracker.canBypass(player, ProtectionFlag.THROW)) {
+                return;
+            }
 
-        // 检查世界保护
-        ProtectedWorld world = getCachedProtectedWorld(location.getWorld().getName());
-        if (world != null && world.isAntiThrow()) {
-            event.setCancelled(true);
-            sendCooldownMessage(player, "world-throw");
+            // 玩家所在区域由跟踪器在移动时维护，这里直接读取
+            PlayerSession session = playerTracker.getFreshSession(player);
+            deny(event, player, session.getCurrentMatch(), session.getCurrentWorld(), ProtectionFlag.THROW);
+        } finally {
+            stats.recordHandler(PerformanceStats.Handler.PROJECTILE_LAUNCH, start);
         }
     }
 
@@ -397,129 +616,164 @@ public class ProtectionListener implements Listener {
      */
     @EventHandler(priority = EventPriority.NORMAL)
     public void onEntityShootBow(EntityShootBowEvent event) {
-        if (!(event.getEntity() instanceof Player)) {
-            return;
-        }
+        long start = stats.startTimer();
+        try {
+            if (!(event.getEntity() instanceof Player)) {
+                return;
+            }
 
-        Player player = (Player) event.getEntity();
+            Player player = (Player) event.getEntity();
 
-        // 检查是否有绕过权限
-        if (player.hasPermission("miaomc.antibuild.bypass")) {
-            return;
-        }
+            if (!dataManager.mayProtect(player.getWorld().getName(), ProtectionFlag.SHOOT)) {
+                return;
+            }
 
-        Location location = player.getLocation();
+            // 检查是否有绕过权限
+            if (playerTracker.canBypass(player, ProtectionFlag.SHOOT)) {
+                return;
+            }
 
-        // 检查区域保护
-        ProtectedArea area = getCachedProtectedArea(location);
-        if (area != null && area.isAntiShoot()) {
-            event.setCancelled(true);
-            sendCooldownMessage(player, "shoot");
-            return;
+            // 玩家所在区域由跟踪器在移动时维护，这里直接读取
+            PlayerSession session = playerTracker.getFreshSession(player);
+            deny(event, player, session.getCurrentMatch(), session.getCurrentWorld(), ProtectionFlag.SHOOT);
+        } finally {
+            stats.recordHandler(PerformanceStats.Handler.ENTITY_SHOOT_BOW, start);
         }
+    }
 
-        // 检查世界保护
-        ProtectedWorld world = getCachedProtectedWorld(location.getWorld().getName());
-        if (world != null && world.isAntiShoot()) {
-            event.setCancelled(true);
-            sendCooldownMessage(player, "world-shoot");
-        }
+    /**
+     * 检查位置是否禁止指定操作，被禁止时取消事件并提示玩家（区域提示优先于世界提示）
+     *
+     * @return 事件是否被取消
+     */
+    private boolean denyIfProtected(Cancellable event, Player player, Location location, ProtectionFlag flag) {
+        return deny(event, player, dataManager.getAreaMatchAt(location),
+                getCachedProtectedWorld(location.getWorld().getName()), flag);
     }
 
     /**
-     * 优化的消息发送方法，使用缓存的消息
+     * 按方块坐标检查，不创建 Location 对象
      */
-    private void sendCooldownMessage(Player player, String messageType) {
-        UUID playerId = player.getUniqueId();
-        long currentTime = System.currentTimeMillis();
+    private boolean denyIfProtected(Cancellable event, Player player, Block block, ProtectionFlag flag) {
+        String worldName = block.getWorld().getName();
+        return deny(event, player, dataManager.getAreaMatchAt(worldName, block.getX(), block.getY(), block.getZ()),
+                getCachedProtectedWorld(worldName), flag);
+    }
 
-        // 获取玩家的冷却时间映射
-        Map<String, Long> playerCooldowns = messageCooldowns.computeIfAbsent(playerId, k -> new ConcurrentHashMap<>());
+    /**
+     * 根据已解析出的区域和世界保护判断是否禁止指定操作，重叠区域的标志已在查找结果中合并
+     */
+    private boolean deny(Cancellable event, Player player, AreaMatch match, ProtectedWorld world, ProtectionFlag flag) {
+        int areaFlags = match.getFlags();
+        int worldFlags = world != null ? world.getFlags() : 0;
 
-        // 检查是否在冷却时间内
-        Long lastMessageTime = playerCooldowns.get(messageType);
-        if (lastMessageTime != null && (currentTime - lastMessageTime) < cooldownTime) {
-            return; // 仍在冷却时间内，不发送消息
+        // 区域与世界的标志合并后一次位与即可判断
+        if (((areaFlags | worldFlags) & flag.getMask()) == 0) {
+            return false;
         }
 
-        // 使用缓存的消息发送
-        String message = cachedMessages.get(messageType);
-        if (message != null && !message.isEmpty()) {
-            player.sendMessage(message);
+        event.setCancelled(true);
+        if (flag.isSet(areaFlags)) {
+            sendCooldownMessage(player, MessageType.area(flag));
+        } else {
+            sendCooldownMessage(player, dataManager.isLoadingPlaceholder(world) ? MessageType.DATA_LOADING : MessageType.world(flag));
         }
-        playerCooldowns.put(messageType, currentTime);
+        return true;
     }
 
     /**
-     * 获取缓存的保护区域，减少数据库查询
+     * 发送提示消息，冷却时间记录在玩家会话中，连续被拒绝时不产生任何分配
      */
-    private ProtectedArea getCachedProtectedArea(Location location) {
-        String key = locationToString(location);
-        return areaCache.computeIfAbsent(key, k -> dataManager.getProtectedAreaAt(location));
+    private void sendCooldownMessage(Player player, MessageType type) {
+        PlayerSession session = playerTracker.getSession(player);
+        if (!session.tryStartCooldown(type, System.currentTimeMillis(), cooldownTime)) {
+            return; // 仍在冷却时间内，不发送消息
+        }
+
+        // 使用缓存的消息发送
+        String message = cachedMessages[type.ordinal()];
+        if (!message.isEmpty()) {
+            player.sendMessage(message);
+        }
     }
 
     /**
      * 获取缓存的保护世界，减少数据库查询
      */
     private ProtectedWorld getCachedProtectedWorld(String worldName) {
-        return worldCache.computeIfAbsent(worldName, k -> dataManager.getProtectedWorld(worldName));
-    }
+        // 世界保护被创建或移除后丢弃旧结果
+        long generation = dataManager.getWorldGeneration();
+        if (generation != worldCacheGeneration) {
+            worldCache.clear();
+            worldCacheGeneration = generation;
+        }
+        ProtectedWorld world = worldCache.get(worldName);
+        if (world != null) {
+            stats.recordCacheHit(PerformanceStats.Cache.WORLD_CACHE);
+            return world;
+        }
 
-    /**
-     * 将位置转换为字符串键
-     */
-    private String locationToString(Location location) {
-        return String.format("%s:%d:%d:%d",
-                location.getWorld().getName(),
-                location.getBlockX(),
-                location.getBlockY(),
-                location.getBlockZ());
+        // 未设置世界保护时没有可缓存的值（ConcurrentHashMap 不能存 null），每次都会计为未命中
+        stats.recordCacheMiss(PerformanceStats.Cache.WORLD_CACHE);
+        world = dataManager.getProtectedWorld(worldName);
+        if (world != null) {
+            worldCache.put(worldName, world);
+        }
+        return world;
     }
 
     /**
      * 公共方法：重新加载配置缓存
      */
     public void reloadConfig() {
-        cachedMessages.clear();
         worldCache.clear();
-        areaCache.clear();
         loadConfigMessages();
+        loadInteractiveMaterials();
     }
 
     /**
-     * 优化的方块交互检查方法
-     *
-     * @param material 方块材质
-     * @return 是否为可交互方块
+     * 按预定义集合、后缀和配置中的增删列表计算全部材质的分类结果
      */
-    private boolean isInteractiveBlockOptimized(Material material) {
-        // 先检查缓存
-        Boolean cachedResult = MATERIAL_CACHE.get(material);
-        if (cachedResult != null) {
-            return cachedResult;
-        }
-
-        boolean result = false;
-
-        // 直接在集合中查找，无需遍历 - O(1) 操作
-        if (INTERACTIVE_MATERIALS.contains(material)) {
-            result = true;
-        } else {
-            // 只有在直接匹配失败时才进行后缀匹配
+    private void loadInteractiveMaterials() {
+        Material[] materials = Material.values();
+        boolean[] table = new boolean[materials.length];
+        for (Material material : materials) {
+            if (INTERACTIVE_MATERIALS.contains(material)) {
+                table[material.ordinal()] = true;
+                continue;
+            }
             String materialName = material.name();
             for (String suffix : INTERACTIVE_SUFFIXES) {
                 if (materialName.endsWith(suffix)) {
-                    result = true;
+                    table[material.ordinal()] = true;
                     break;
                 }
             }
         }
 
-        // 在添加到缓存前检查缓存大小，防止内存溢出
-        if (MATERIAL_CACHE.size() < MAX_MATERIAL_CACHE_SIZE) {
-            MATERIAL_CACHE.put(material, result);
+        applyMaterialList(table, "interactive-blocks.add", true);
+        applyMaterialList(table, "interactive-blocks.remove", false);
+        interactiveMaterials = table;
+    }
+
+    private void applyMaterialList(boolean[] table, String path, boolean value) {
+        for (String name : plugin.getConfig().getStringList(path)) {
+            Material material = Material.matchMaterial(name);
+            if (material == null) {
+                plugin.getLogger().warning("配置 " + path + " 中的材质 " + name + " 不存在，已忽略");
+                continue;
+            }
+            table[material.ordinal()] = value;
         }
+    }
 
-        return result;
+    /**
+     * 优化的方块交互检查方法，只需一次数组读取
+     *
+     * @param material 方块材质
+     * @return 是否为可交互方块
+     */
+    private boolean isInteractiveBlockOptimized(Material material) {
+        return interactiveMaterials[material.ordinal()];
     }
 }
@@ -0,0 +1,43 @@
+package com.miaomc.antiBuild.listeners;
+
+import com.miaomc.antiBuild.data.DataManager;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+/**
+ * 跟随世界加载和卸载绑定、释放区域索引，跟随区块加载和卸载构建、释放区块查找表
+ * <p>
+ * 由多世界管理插件在启用之后加载的世界，会在加载时才为其区域构建索引。
+ */
+public class WorldListener implements Listener {
+    private final DataManager dataManager;
+
+    public WorldListener(DataManager dataManager) {
+        this.dataManager = dataManager;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldLoad(WorldLoadEvent event) {
+        dataManager.onWorldLoad(event.getWorld().getName());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        dataManager.onWorldUnload(event.getWorld().getName());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        dataManager.onChunkLoad(event.getWorld().getName(), event.getChunk().getX(), event.getChunk().getZ());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        dataManager.onChunkUnload(event.getWorld().getName(), event.getChunk().getX(), event.getChunk().getZ());
+    }
+}
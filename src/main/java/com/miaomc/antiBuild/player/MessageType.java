@@ -0,0 +1,94 @@
+package com.miaomc.antiBuild.player;
+
+import com.miaomc.antiBuild.data.ProtectionFlag;
+
+/**
+ * 拒绝操作时发送给玩家的提示类型，每种提示单独计算冷却时间
+ * <p>
+ * 冷却时间按序号保存在 {@link PlayerSession} 的数组中，新增 {@link ProtectionFlag} 时需要在这里补上对应的区域和世界提示。
+ */
+public enum MessageType {
+    PLACE(ProtectionFlag.PLACE, false),
+    BREAK(ProtectionFlag.BREAK, false),
+    INTERACTION(ProtectionFlag.INTERACTION, false),
+    USE(ProtectionFlag.USE, false),
+    EXPLOSION(ProtectionFlag.EXPLOSION, false),
+    FISHING(ProtectionFlag.FISHING, false),
+    ANIMAL_INTERACT(ProtectionFlag.ANIMAL_INTERACT, false),
+    THROW(ProtectionFlag.THROW, false),
+    SHOOT(ProtectionFlag.SHOOT, false),
+    TRAMPLE(ProtectionFlag.TRAMPLE, false),
+    FLOW(ProtectionFlag.FLOW, false),
+    PISTON(ProtectionFlag.PISTON, false),
+    FIRE(ProtectionFlag.FIRE, false),
+
+    WORLD_PLACE(ProtectionFlag.PLACE, true),
+    WORLD_BREAK(ProtectionFlag.BREAK, true),
+    WORLD_INTERACTION(ProtectionFlag.INTERACTION, true),
+    WORLD_USE(ProtectionFlag.USE, true),
+    WORLD_EXPLOSION(ProtectionFlag.EXPLOSION, true),
+    WORLD_FISHING(ProtectionFlag.FISHING, true),
+    WORLD_ANIMAL_INTERACT(ProtectionFlag.ANIMAL_INTERACT, true),
+    WORLD_THROW(ProtectionFlag.THROW, true),
+    WORLD_SHOOT(ProtectionFlag.SHOOT, true),
+    WORLD_TRAMPLE(ProtectionFlag.TRAMPLE, true),
+    WORLD_FLOW(ProtectionFlag.FLOW, true),
+    WORLD_PISTON(ProtectionFlag.PISTON, true),
+    WORLD_FIRE(ProtectionFlag.FIRE, true),
+
+    DATA_LOADING("messages.data-loading");
+
+    private static final MessageType[] AREA_MESSAGES = new MessageType[ProtectionFlag.values().length];
+    private static final MessageType[] WORLD_MESSAGES = new MessageType[ProtectionFlag.values().length];
+
+    static {
+        for (MessageType type : values()) {
+            if (type.flag != null) {
+                (type.world ? WORLD_MESSAGES : AREA_MESSAGES)[type.flag.ordinal()] = type;
+            }
+        }
+        for (ProtectionFlag flag : ProtectionFlag.values()) {
+            if (AREA_MESSAGES[flag.ordinal()] == null || WORLD_MESSAGES[flag.ordinal()] == null) {
+                throw new IllegalStateException("缺少保护标志 " + flag + " 的提示类型");
+            }
+        }
+    }
+
+    private final ProtectionFlag flag;
+    private final boolean world;
+    private final String configPath;
+
+    MessageType(ProtectionFlag flag, boolean world) {
+        this.flag = flag;
+        this.world = world;
+        this.configPath = (world ? "messages.world-protection-messages." : "messages.protection-messages.")
+                + flag.getCommandName();
+    }
+
+    MessageType(String configPath) {
+        this.flag = null;
+        this.world = false;
+        this.configPath = configPath;
+    }
+
+    /**
+     * 配置文件中对应消息的路径
+     */
+    public String getConfigPath() {
+        return configPath;
+    }
+
+    /**
+     * 区域禁止指定操作时的提示
+     */
+    public static MessageType area(ProtectionFlag flag) {
+        return AREA_MESSAGES[flag.ordinal()];
+    }
+
+    /**
+     * 世界禁止指定操作时的提示
+     */
+    public static MessageType world(ProtectionFlag flag) {
+        return WORLD_MESSAGES[flag.ordinal()];
+    }
+}
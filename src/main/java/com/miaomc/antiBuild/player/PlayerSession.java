@@ -0,0 +1,125 @@
+package com.miaomc.antiBuild.player;
+
+import com.miaomc.antiBuild.data.AreaMatch;
+import com.miaomc.antiBuild.data.ProtectedArea;
+import com.miaomc.antiBuild.data.ProtectedWorld;
+import com.miaomc.antiBuild.data.ProtectionFlag;
+
+import java.util.UUID;
+
+/**
+ * 在线玩家的会话数据，玩家加入时创建、退出时移除，仅在主线程访问
+ * <p>
+ * 记录玩家当前所在的方块、区域和世界保护，只在玩家跨越方块时更新，
+ * 以玩家位置为准的检查（钓鱼、投掷、射击）直接读取这里的结果。
+ */
+public class PlayerSession {
+    private final UUID playerId;
+
+    // 最近一次更新时的方块位置
+    private String worldName;
+    private int blockX;
+    private int blockY;
+    private int blockZ;
+
+    private AreaMatch currentMatch = AreaMatch.NONE; // 当前位置的全部区域及合并后的标志
+    private ProtectedWorld currentWorld;
+
+    // 计算结果所依据的数据版本，版本变化后需要重新计算
+    private long indexGeneration = -1;
+    private long worldGeneration = -1;
+
+    // 可绕过的保护标志位掩码，由 PlayerTracker 按权限计算
+    private int bypassFlags;
+    private long bypassGeneration = -1;
+
+    // 各类提示最近一次发送的时间，按 MessageType 序号索引
+    private final long[] messageTimes = new long[MessageType.values().length];
+
+    public PlayerSession(UUID playerId) {
+        this.playerId = playerId;
+    }
+
+    public UUID getPlayerId() {
+        return playerId;
+    }
+
+    /**
+     * 判断玩家是否仍在上次记录的方块内
+     */
+    public boolean isAtBlock(String worldName, int blockX, int blockY, int blockZ) {
+        return this.blockX == blockX && this.blockY == blockY && this.blockZ == blockZ &&
+                worldName.equals(this.worldName);
+    }
+
+    void setBlock(String worldName, int blockX, int blockY, int blockZ) {
+        this.worldName = worldName;
+        this.blockX = blockX;
+        this.blockY = blockY;
+        this.blockZ = blockZ;
+    }
+
+    public String getWorldName() {
+        return worldName;
+    }
+
+    /**
+     * 当前位置优先级最高的区域
+     */
+    public ProtectedArea getCurrentArea() {
+        return currentMatch.getPrimary();
+    }
+
+    public AreaMatch getCurrentMatch() {
+        return currentMatch;
+    }
+
+    void setCurrentMatch(AreaMatch currentMatch) {
+        this.currentMatch = currentMatch;
+    }
+
+    public ProtectedWorld getCurrentWorld() {
+        return currentWorld;
+    }
+
+    void setCurrentWorld(ProtectedWorld currentWorld) {
+        this.currentWorld = currentWorld;
+    }
+
+    boolean isStale(long indexGeneration, long worldGeneration) {
+        return this.indexGeneration != indexGeneration || this.worldGeneration != worldGeneration;
+    }
+
+    void setGenerations(long indexGeneration, long worldGeneration) {
+        this.indexGeneration = indexGeneration;
+        this.worldGeneration = worldGeneration;
+    }
+
+    /**
+     * 玩家是否可以绕过指定保护，结果来自最近一次权限计算
+     */
+    public boolean canBypass(ProtectionFlag flag) {
+        return flag.isSet(bypassFlags);
+    }
+
+    boolean isBypassStale(long bypassGeneration) {
+        return this.bypassGeneration != bypassGeneration;
+    }
+
+    void setBypass(int bypassFlags, long bypassGeneration) {
+        this.bypassFlags = bypassFlags;
+        this.bypassGeneration = bypassGeneration;
+    }
+
+    /**
+     * 提示不在冷却时间内时记录本次发送时间并返回 true
+     */
+    public boolean tryStartCooldown(MessageType type, long now, long cooldown) {
+        int index = type.ordinal();
+        if (messageTimes[index] != 0 && now - messageTimes[index] < cooldown) {
+            return false;
+        }
+        messageTimes[index] = now;
+        return true;
+    }
+}
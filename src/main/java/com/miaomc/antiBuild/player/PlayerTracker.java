@@ -0,0 +1,240 @@
+package com.miaomc.antiBuild.player;
+
+import com.miaomc.antiBuild.data.AreaMatch;
+import com.miaomc.antiBuild.data.DataManager;
+import com.miaomc.antiBuild.data.ProtectedArea;
+import com.miaomc.antiBuild.data.ProtectionFlag;
+import com.miaomc.antiBuild.events.AreaEnterEvent;
+import com.miaomc.antiBuild.events.AreaLeaveEvent;
+import com.miaomc.antiBuild.stats.PerformanceStats;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.*;
+import org.bukkit.event.vehicle.VehicleMoveEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 跟踪每个在线玩家当前所在的区域和世界保护
+ * <p>
+ * 只在玩家（或其乘坐的载具）跨越方块边界或传送时重新查找区域，并在区域变化时触发
+ * {@link AreaEnterEvent} / {@link AreaLeaveEvent}，区域重叠时以优先级最高的区域为准。区域或世界保护被修改后，
+ * 下一次读取会按新的数据版本重新计算。
+ * <p>
+ * 同时缓存玩家的绕过权限：加入、切换世界时重新计算，另有定时刷新和手动失效接口，
+ * 事件处理中判断绕过只需读取会话中的位掩码。
+ */
+public class PlayerTracker implements Listener {
+    private final Plugin plugin;
+    private final DataManager dataManager;
+    private final PerformanceStats stats;
+    private final Map<UUID, PlayerSession> sessions = new HashMap<>();
+    // 递增后所有会话的绕过权限在下次使用时重新计算
+    private long bypassGeneration = 0;
+
+    private static final String BYPASS_PERMISSION = "miaomc.antibuild.bypass";
+
+    public PlayerTracker(Plugin plugin, PerformanceStats stats, DataManager dataManager) {
+        this.plugin = plugin;
+        this.dataManager = dataManager;
+        this.stats = stats;
+
+        // 重载插件时玩家不会重新触发加入事件，为已在线的玩家补建会话
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            update(player, player.getLocation());
+        }
+
+        startBypassRefreshTask();
+    }
+
+    /**
+     * 定时让绕过权限失效，覆盖权限插件在运行中修改权限的情况
+     */
+    private void startBypassRefreshTask() {
+        long interval = Math.max(1, plugin.getConfig().getLong("bypass-refresh-interval", 30)) * 20;
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                invalidateAllBypass();
+            }
+        }.runTaskTimer(plugin, interval, interval);
+    }
+
+    /**
+     * 获取玩家会话，不存在时创建
+     */
+    public PlayerSession getSession(Player player) {
+        PlayerSession session = sessions.get(player.getUniqueId());
+        if (session == null) {
+            session = new PlayerSession(player.getUniqueId());
+            sessions.put(player.getUniqueId(), session);
+        }
+        return session;
+    }
+
+    /**
+     * 获取玩家会话并确保区域和世界保护是最新的
+     */
+    public PlayerSession getFreshSession(Player player) {
+        PlayerSession session = getSession(player);
+        if (session.isStale(dataManager.getIndexGeneration(), dataManager.getWorldGeneration())) {
+            update(player, player.getLocation());
+        }
+        return session;
+    }
+
+    /**
+     * 判断玩家是否可以绕过指定保护（总权限或对应的分项权限）
+     */
+    public boolean canBypass(Player player, ProtectionFlag flag) {
+        PlayerSession session = getSession(player);
+        if (session.isBypassStale(bypassGeneration)) {
+            refreshBypass(player, session);
+        }
+        return session.canBypass(flag);
+    }
+
+    /**
+     * 立即重新计算玩家的绕过权限，供修改权限后调用
+     */
+    public void invalidateBypass(Player player) {
+        refreshBypass(player, getSession(player));
+    }
+
+    /**
+     * 让所有玩家的绕过权限在下次使用时重新计算
+     */
+    public void invalidateAllBypass() {
+        bypassGeneration++;
+    }
+
+    private void refreshBypass(Player player, PlayerSession session) {
+        int flags = 0;
+        if (player.hasPermission(BYPASS_PERMISSION)) {
+            flags = -1;
+        } else {
+            for (ProtectionFlag flag : ProtectionFlag.values()) {
+                if (player.hasPermission(BYPASS_PERMISSION + "." + flag.getCommandName())) {
+                    flags |= flag.getMask();
+                }
+            }
+        }
+        session.setBypass(flags, bypassGeneration);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        update(event.getPlayer(), event.getPlayer().getLocation());
+        invalidateBypass(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        sessions.remove(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerMove(PlayerMoveEvent event) {
+        long start = stats.startTimer();
+        try {
+            Location to = event.getTo();
+            if (to == null || to.getWorld() == null) {
+                return;
+            }
+
+            // 绝大多数移动不会跨越方块，直接比较整数坐标后返回
+            PlayerSession session = sessions.get(event.getPlayer().getUniqueId());
+            if (session != null && session.isAtBlock(to.getWorld().getName(), to.getBlockX(), to.getBlockY(), to.getBlockZ())) {
+                return;
+            }
+            update(event.getPlayer(), to);
+        } finally {
+            stats.recordHandler(PerformanceStats.Handler.PLAYER_MOVE, start);
+        }
+    }
+
+    /**
+     * 乘坐船、矿车或坐骑时不会触发玩家移动事件，按载具的位置更新所有玩家乘客
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onVehicleMove(VehicleMoveEvent event) {
+        long start = stats.startTimer();
+        try {
+            Location to = event.getTo();
+            if (to.getWorld() == null) {
+                return;
+            }
+            String worldName = to.getWorld().getName();
+            for (Entity passenger : event.getVehicle().getPassengers()) {
+                if (!(passenger instanceof Player player)) {
+                    continue;
+                }
+                PlayerSession session = sessions.get(player.getUniqueId());
+                if (session != null && session.isAtBlock(worldName, to.getBlockX(), to.getBlockY(), to.getBlockZ())) {
+                    continue;
+                }
+                update(player, to);
+            }
+        } finally {
+            stats.recordHandler(PerformanceStats.Handler.VEHICLE_MOVE, start);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerTeleport(PlayerTeleportEvent event) {
+        if (event.getTo() != null) {
+            update(event.getPlayer(), event.getTo());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerRespawn(PlayerRespawnEvent event) {
+        update(event.getPlayer(), event.getRespawnLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        update(event.getPlayer(), event.getPlayer().getLocation());
+        invalidateBypass(event.getPlayer()); // 权限插件可能按世界授予权限
+    }
+
+    /**
+     * 按新位置重新计算玩家所在的区域和世界保护，区域变化时触发进入/离开事件
+     */
+    private void update(Player player, Location location) {
+        if (location == null || location.getWorld() == null) {
+            return;
+        }
+
+        PlayerSession session = getSession(player);
+        String worldName = location.getWorld().getName();
+        long indexGeneration = dataManager.getIndexGeneration();
+        long worldGeneration = dataManager.getWorldGeneration();
+
+        ProtectedArea previous = session.getCurrentArea();
+        AreaMatch match = dataManager.getAreaMatchAt(location);
+        ProtectedArea current = match.getPrimary();
+
+        session.setBlock(worldName, location.getBlockX(), location.getBlockY(), location.getBlockZ());
+        session.setCurrentMatch(match);
+        session.setCurrentWorld(dataManager.getProtectedWorld(worldName));
+        session.setGenerations(indexGeneration, worldGeneration);
+
+        if (previous != current) {
+            if (previous != null) {
+                plugin.getServer().getPluginManager().callEvent(new AreaLeaveEvent(player, previous));
+            }
+            if (current != null) {
+                plugin.getServer().getPluginManager().callEvent(new AreaEnterEvent(player, current));
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.miaomc.antiBuild.stats;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 热路径性能统计：各事件处理器的调用次数与耗时、各缓存的命中率、索引查找的候选区域数
+ * <p>
+ * 计数全部使用 LongAdder 分段累加，主线程和异步线程同时记录也不会竞争。
+ * 关闭统计时 {@link #startTimer()} 直接返回 0，处理器不会调用 nanoTime。
+ */
+public class PerformanceStats {
+
+    /**
+     * 被统计的事件处理器
+     */
+    public enum Handler {
+        BLOCK_PLACE("放置方块"),
+        BLOCK_BREAK("破坏方块"),
+        PLAYER_INTERACT("方块交互"),
+        ENTITY_EXPLODE("实体爆炸"),
+        PLAYER_FISH("钓鱼"),
+        PLAYER_INTERACT_ENTITY("实体交互"),
+        PROJECTILE_LAUNCH("投掷"),
+        ENTITY_SHOOT_BOW("射击"),
+        ENTITY_INTERACT("生物踩踏"),
+        BLOCK_EXPLODE("方块爆炸"),
+        BLOCK_FROM_TO("液体流动"),
+        PISTON("活塞推拉"),
+        BLOCK_SPREAD("火焰蔓延"),
+        BLOCK_BURN("方块烧毁"),
+        PLAYER_MOVE("玩家移动跟踪"),
+        VEHICLE_MOVE("载具移动跟踪");
+
+        private final String displayName;
+
+        Handler(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    /**
+     * 被统计的缓存
+     */
+    public enum Cache {
+        WORLD_CACHE("worldCache"),
+        CHUNK_LOOKUP("chunkLookup");
+
+        private final String displayName;
+
+        Cache(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    private volatile boolean enabled = false;
+    private volatile long startedAt = System.currentTimeMillis();
+
+    private final Map<Handler, LatencyHistogram> handlerLatency = new EnumMap<>(Handler.class);
+    private final Map<Cache, LongAdder> cacheHits = new EnumMap<>(Cache.class);
+    private final Map<Cache, LongAdder> cacheMisses = new EnumMap<>(Cache.class);
+    private final LongAdder indexLookups = new LongAdder();
+    private final LongAdder indexCandidates = new LongAdder();
+    private final LongAdder emptyChunkSkips = new LongAdder();
+    private final LongAdder coveredSectionHits = new LongAdder();
+
+    public PerformanceStats() {
+        for (Handler handler : Handler.values()) {
+            handlerLatency.put(handler, new LatencyHistogram());
+        }
+        for (Cache cache : Cache.values()) {
+            cacheHits.put(cache, new LongAdder());
+            cacheMisses.put(cache, new LongAdder());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * 处理器开始计时，关闭统计时返回 0
+     */
+    public long startTimer() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * 记录处理器的一次调用，startTime 为 {@link #startTimer()} 的返回值
+     */
+    public void recordHandler(Handler handler, long startTime) {
+        if (startTime != 0L) {
+            handlerLatency.get(handler).record(System.nanoTime() - startTime);
+        }
+    }
+
+    public void recordCacheHit(Cache cache) {
+        if (enabled) {
+            cacheHits.get(cache).increment();
+        }
+    }
+
+    public void recordCacheMiss(Cache cache) {
+        if (enabled) {
+            cacheMisses.get(cache).increment();
+        }
+    }
+
+    /**
+     * 记录一次索引查找检查的候选区域数
+     */
+    public void recordIndexLookup(int candidates) {
+        if (enabled) {
+            indexLookups.increment();
+            indexCandidates.add(candidates);
+        }
+    }
+
+    /**
+     * 记录一次因所在区块没有区域而直接返回的查找
+     */
+    public void recordEmptyChunkSkip() {
+        if (enabled) {
+            emptyChunkSkips.increment();
+        }
+    }
+
+    /**
+     * 记录一次由完全覆盖的区块段直接得到结果的查找
+     */
+    public void recordCoveredSectionHit() {
+        if (enabled) {
+            coveredSectionHits.increment();
+        }
+    }
+
+    public LatencyHistogram getHandlerLatency(Handler handler) {
+        return handlerLatency.get(handler);
+    }
+
+    public void reset() {
+        handlerLatency.values().forEach(LatencyHistogram::reset);
+        cacheHits.values().forEach(LongAdder::reset);
+        cacheMisses.values().forEach(LongAdder::reset);
+        indexLookups.reset();
+        indexCandidates.reset();
+        emptyChunkSkips.reset();
+        coveredSectionHits.reset();
+        startedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 生成可读的统计报告，每个元素为一行（不含颜色代码）
+     */
+    public List<String> createReport() {
+        List<String> lines = new ArrayList<>();
+        long seconds = Math.max(1, (System.currentTimeMillis() - startedAt) / 1000);
+        lines.add(String.format(Locale.ROOT, "统计时长: %d 秒, 统计%s", seconds, enabled ? "开启" : "关闭"));
+
+        lines.add("事件处理器（次数 / 平均 / p50 / p99 / 最大 / 总耗时，单位微秒）:");
+        for (Handler handler : Handler.values()) {
+            LatencyHistogram histogram = handlerLatency.get(handler);
+            long count = histogram.getCount();
+            if (count == 0) {
+                continue;
+            }
+            lines.add(String.format(Locale.ROOT, "  %s: %d / %.2f / %.2f / %.2f / %.2f / %.1f",
+                    handler.getDisplayName(), count,
+                    histogram.getAverageNanos() / 1000.0,
+                    histogram.getQuantileNanos(0.5) / 1000.0,
+                    histogram.getQuantileNanos(0.99) / 1000.0,
+                    histogram.getMaxNanos() / 1000.0,
+                    histogram.getTotalNanos() / 1000.0));
+        }
+
+        lines.add("缓存命中率:");
+        for (Cache cache : Cache.values()) {
+            long hits = cacheHits.get(cache).sum();
+            long misses = cacheMisses.get(cache).sum();
+            long total = hits + misses;
+            lines.add(String.format(Locale.ROOT, "  %s: %d / %d (%.1f%%)",
+                    cache.getDisplayName(), hits, total, total == 0 ? 0.0 : hits * 100.0 / total));
+        }
+
+        long lookups = indexLookups.sum();
+        lines.add(String.format(Locale.ROOT, "索引查找: %d 次, 平均候选区域 %.2f 个, 空区块直接返回 %d 次, 覆盖区块段直接返回 %d 次",
+                lookups, lookups == 0 ? 0.0 : (double) indexCandidates.sum() / lookups, emptyChunkSkips.sum(),
+                coveredSectionHits.sum()));
+        return lines;
+    }
+}